@@ -0,0 +1,489 @@
+package gomoku;
+
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+public class Benchmark {
+
+    private static final int[] THREAD_COUNTS = {1, 2, 4, 8};
+    private static final int SEARCH_DEPTH = 6;
+    private static final int[] BOARD_SIZES = {9, 15, 19};
+    private static final long MOVE_TIME_MILLIS = 1000;
+    private static final int THREAT_REPEATS = 200;
+    private static final int[] PONDER_DEPTHS = {6, 8};
+    private static final int PONDER_MOVES = 10;
+    private static final long THINK_MILLIS = 2000;
+    private static final double[] ENDGAME_FULLNESS = {0.6, 0.7, 0.8};
+    private static final int ENDGAME_SEEDS = 60;
+    private static final long MCTS_MILLIS = 2000;
+    private static final int[] QUIESCENCE_DEPTHS = {2, 4, 6};
+
+    public static void main(String[] args) {
+        String mode = args.length > 0 ? args[0] : "";
+
+        if (mode.equals("allocation")) {
+            allocationPerNode();
+        } else if (mode.equals("scaling")) {
+            boardSizeScaling();
+        } else if (mode.equals("threats")) {
+            threatSuite();
+        } else if (mode.equals("ordering")) {
+            moveOrdering();
+        } else if (mode.equals("pvs")) {
+            windowSearch();
+        } else if (mode.equals("ponder")) {
+            pondering();
+        } else if (mode.equals("solver")) {
+            endgameSolver();
+        } else if (mode.equals("mcts")) {
+            monteCarlo();
+        } else if (mode.equals("symmetry")) {
+            symmetry();
+        } else if (mode.equals("quiescence")) {
+            quiescence();
+        } else {
+            System.out.println("Usage: java Benchmark [allocation|scaling|threats|ordering|pvs|ponder|solver|mcts|symmetry|quiescence]");
+        }
+    }
+
+    // Bytes allocated by the search thread per node, measured on a second search of
+    // every position so buffers and class loading are out of the picture
+    private static void allocationPerNode() {
+        com.sun.management.ThreadMXBean threadBean = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        long threadId = Thread.currentThread().getId();
+
+        System.out.println("Allocation per node, depth " + SEARCH_DEPTH);
+        System.out.printf("%10s %14s %14s %12s%n", "position", "nodes", "bytes", "bytes/node");
+
+        for (int i = 0; i < BenchmarkPositions.MIDGAME.length; i++) {
+            SearchPosition search = new SearchPosition(BenchmarkPositions.MIDGAME[i]);
+            Minimax minimax = SearchPosition.minimax(SEARCH_DEPTH);
+            search.search(minimax);
+            minimax.getTable().clear();
+
+            long before = threadBean.getThreadAllocatedBytes(threadId);
+            search.search(minimax);
+            long bytes = threadBean.getThreadAllocatedBytes(threadId) - before;
+
+            System.out.printf("%10d %14d %14d %12.4f%n", i, minimax.nodes, bytes,
+                    minimax.nodes == 0 ? 0 : (double) bytes / minimax.nodes);
+        }
+    }
+
+    // Depth reached in a fixed budget for the benchmark positions placed in the middle of every
+    // board size. Time per search at a fixed depth is SearchBenchmark -p size=9,15,19
+    private static void boardSizeScaling() {
+        System.out.println("Board size scaling, " + MOVE_TIME_MILLIS + " ms budget");
+        System.out.printf("%6s %14s%n", "size", "depth in budget");
+
+        for (int size : BOARD_SIZES) {
+            int totalDepth = 0;
+
+            for (String[] rows : BenchmarkPositions.MIDGAME) {
+                SearchPosition search = new SearchPosition(rows, size);
+                Minimax timed = SearchPosition.minimax(search.board.movesLeft);
+                timed.setMoveTime(MOVE_TIME_MILLIS);
+                search.search(timed);
+                totalDepth += timed.depthReached;
+            }
+
+            System.out.printf("%6s %14.1f%n", size + "x" + size, (double) totalDepth / BenchmarkPositions.MIDGAME.length);
+        }
+    }
+
+    // Solve rate and time on the forced-win suite: the threat search alone, and plain Minimax at
+    // SEARCH_DEPTH with the threat search turned off. A position counts as solved by Minimax when
+    // its root score is a win
+    private static void threatSuite() {
+        String[] kinds = {"none", "win", "block", "VCF", "VCT"};
+        System.out.println("Threat suite, Minimax at depth " + SEARCH_DEPTH + " without threat search");
+        System.out.printf("%10s %8s %10s %12s %12s %14s%n", "position", "threats", "nodes", "threat (us)", "minimax", "minimax (ms)");
+
+        int threatSolved = 0;
+        int minimaxSolved = 0;
+        double threatMicros = 0;
+        double minimaxMillis = 0;
+
+        // warm-up so the first position is not timed in the interpreter
+        for (String[] rows : BenchmarkPositions.THREATS) {
+            Board board = BenchmarkPositions.parseBoard(rows);
+            for (int repeat = 0; repeat < THREAT_REPEATS; repeat++) {
+                new ThreatSearch().findForcedMove(board, BenchmarkPositions.sideToMove(board));
+            }
+        }
+
+        for (int i = 0; i < BenchmarkPositions.THREATS.length; i++) {
+            SearchPosition search = new SearchPosition(BenchmarkPositions.THREATS[i]);
+
+            ThreatSearch threatSearch = new ThreatSearch();
+            long start = System.nanoTime();
+            for (int repeat = 0; repeat < THREAT_REPEATS; repeat++) {
+                threatSearch.findForcedMove(search.board, search.side);
+            }
+            double micros = (System.nanoTime() - start) / 1e3 / THREAT_REPEATS;
+
+            Minimax minimax = SearchPosition.minimax(SEARCH_DEPTH);
+            start = System.nanoTime();
+            search.search(minimax);
+            double millis = (System.nanoTime() - start) / 1e6;
+            boolean minimaxWins = minimax.bestScore > Minimax.MATE_THRESHOLD;
+
+            if (threatSearch.lastResult != ThreatSearch.NONE) threatSolved++;
+            if (minimaxWins) minimaxSolved++;
+            threatMicros += micros;
+            minimaxMillis += millis;
+
+            System.out.printf("%10d %8s %10d %12.1f %12s %14.1f%n", i, kinds[threatSearch.lastResult],
+                    threatSearch.nodes, micros, minimaxWins ? "win" : "-", millis);
+        }
+
+        int n = BenchmarkPositions.THREATS.length;
+        System.out.printf("threat search solved %d/%d, %.1f us per position%n", threatSolved, n, threatMicros / n);
+        System.out.printf("minimax solved %d/%d, %.1f ms per position%n", minimaxSolved, n, minimaxMillis / n);
+    }
+
+    // Nodes, time and the share of cutoffs made by the first move searched, with and without
+    // killer moves and history, at SEARCH_DEPTH on the midgame positions
+    private static void moveOrdering() {
+        System.out.println("Move ordering, depth " + SEARCH_DEPTH);
+        System.out.printf("%10s %10s %14s %12s %16s %8s%n", "position", "killers", "nodes", "time (ms)", "first cutoffs", "move");
+
+        for (int i = 0; i < BenchmarkPositions.MIDGAME.length; i++) {
+            for (boolean heuristics : new boolean[]{false, true}) {
+                SearchPosition search = new SearchPosition(BenchmarkPositions.MIDGAME[i]);
+                Minimax minimax = SearchPosition.minimax(SEARCH_DEPTH);
+                minimax.setOrderingHeuristics(heuristics);
+
+                long start = System.nanoTime();
+                int[] move = search.search(minimax);
+                double millis = (System.nanoTime() - start) / 1e6;
+
+                System.out.printf("%10d %10s %14d %12.1f %15.1f%% %8s%n", i, heuristics ? "on" : "off",
+                        minimax.nodes, millis, minimax.firstMoveCutoffRate() * 100, move[0] + "," + move[1]);
+            }
+        }
+    }
+
+    // Solve rate and time of the proof-number solver on random 9x9 endgames at several fullness
+    // levels, against Minimax at SEARCH_DEPTH without the solver. Positions the threat search
+    // already decides are left out. A Minimax move counts as right when the position after it
+    // still has the proven result, checked with the solver
+    private static void endgameSolver() {
+        System.out.println("Endgame solver, 9x9, node limit " + ProofNumberSearch.DEFAULT_NODE_LIMIT
+                + ", Minimax at depth " + SEARCH_DEPTH + " without the solver");
+        System.out.println("results for the side to move, unknown means the node limit was reached");
+        System.out.printf("%8s %10s %7s %7s %7s %8s %12s %12s %14s %14s%n", "filled", "positions", "win", "draw", "loss",
+                "unknown", "solver (ms)", "max (ms)", "minimax (ms)", "minimax right");
+
+        for (double fullness : ENDGAME_FULLNESS) {
+            int[] counts = new int[4];
+            int positions = 0;
+            int minimaxRight = 0;
+            int minimaxChecked = 0;
+            double solverMillis = 0;
+            double maxMillis = 0;
+            double minimaxMillis = 0;
+
+            for (long seed = 1; seed <= ENDGAME_SEEDS; seed++) {
+                Board board = BenchmarkPositions.randomEndgame(9, fullness, seed);
+                if (board == null) {
+                    continue;
+                }
+                SearchPosition search = new SearchPosition(board);
+                char side = search.side;
+                char other = search.player.getSymbol();
+                if (new ThreatSearch().findForcedMove(board, side) >= 0) {
+                    continue;
+                }
+                positions++;
+
+                ProofNumberSearch solver = new ProofNumberSearch();
+                long start = System.nanoTime();
+                solver.solve(board, side);
+                double millis = (System.nanoTime() - start) / 1e6;
+                int result = solver.lastResult;
+                counts[result]++;
+                solverMillis += millis;
+                maxMillis = Math.max(maxMillis, millis);
+
+                // the threat search is left on here, it has nothing to find in these positions
+                Minimax minimax = new Minimax();
+                minimax.setMaxDepth(SEARCH_DEPTH);
+                minimax.setSolver(false);
+                start = System.nanoTime();
+                int[] move = search.search(minimax);
+                minimaxMillis += (System.nanoTime() - start) / 1e6;
+
+                if (result == ProofNumberSearch.WIN || result == ProofNumberSearch.DRAW) {
+                    boolean five = MovesAnalyzer.checkWinningCondition(board, side, move[0], move[1]);
+                    board.makeAIMove(move[0], move[1], side);
+                    int after = five ? ProofNumberSearch.LOSS : ProofNumberSearch.UNKNOWN;
+                    if (!five) {
+                        solver.solve(board, other);
+                        after = solver.lastResult;
+                    }
+                    if (after != ProofNumberSearch.UNKNOWN) {
+                        minimaxChecked++;
+                        // the opponent's result after the move mirrors the one proven before it
+                        if (after == (result == ProofNumberSearch.WIN ? ProofNumberSearch.LOSS : ProofNumberSearch.DRAW)) {
+                            minimaxRight++;
+                        }
+                    }
+                }
+            }
+
+            System.out.printf("%7.0f%% %10d %7d %7d %7d %8d %12.1f %12.1f %14.1f %9d/%d%n", fullness * 100, positions,
+                    counts[ProofNumberSearch.WIN], counts[ProofNumberSearch.DRAW], counts[ProofNumberSearch.LOSS],
+                    counts[ProofNumberSearch.UNKNOWN], solverMillis / positions, maxMillis, minimaxMillis / positions,
+                    minimaxRight, minimaxChecked);
+        }
+    }
+
+    // Playouts/sec of the Monte Carlo tree search with MCTS_MILLIS per move, for both rollout kinds
+    // and every thread count, after one warm-up search. Positions the threat search decides are
+    // left out, their trees end in a five after a few moves and the playouts cost next to nothing
+    private static void monteCarlo() {
+        List<String[]> positions = new ArrayList<>();
+        positions.add(BenchmarkPositions.OPENING);
+        for (String[] rows : BenchmarkPositions.MIDGAME) {
+            Board board = BenchmarkPositions.parseBoard(rows);
+            if (new ThreatSearch().findForcedMove(board, BenchmarkPositions.sideToMove(board)) < 0) {
+                positions.add(rows);
+            }
+        }
+
+        System.out.println("Monte Carlo tree search, " + positions.size() + " positions, " + MCTS_MILLIS + " ms each, "
+                + Runtime.getRuntime().availableProcessors() + " cores");
+        System.out.printf("%8s %8s %12s %14s %10s %12s%n", "rollout", "threads", "playouts", "playouts/sec", "speedup", "confidence");
+
+        new SearchPosition(BenchmarkPositions.MIDGAME[0]).search(new MonteCarloTreeSearch());
+
+        String[] names = {"random", "guided"};
+        for (int rollout : new int[]{MonteCarloTreeSearch.RANDOM_ROLLOUT, MonteCarloTreeSearch.GUIDED_ROLLOUT}) {
+            double baseline = 0;
+            for (int threads : THREAD_COUNTS) {
+                long totalPlayouts = 0;
+                long totalNanos = 0;
+                double confidence = 0;
+
+                for (String[] rows : positions) {
+                    MonteCarloTreeSearch search = new MonteCarloTreeSearch();
+                    search.setRollout(rollout);
+                    search.setMoveTime(MCTS_MILLIS);
+                    search.setThreads(threads);
+
+                    long start = System.nanoTime();
+                    new SearchPosition(rows).search(search);
+                    totalNanos += System.nanoTime() - start;
+                    totalPlayouts += search.playouts;
+                    confidence += search.confidence;
+                    search.shutdown();
+                }
+
+                double rate = totalPlayouts / (totalNanos / 1e9);
+                if (threads == 1) {
+                    baseline = rate;
+                }
+                System.out.printf("%8s %8d %12d %14.0f %10.2f %11.1f%%%n", names[rollout], threads, totalPlayouts, rate,
+                        rate / baseline, 100 * confidence / positions.size());
+            }
+        }
+    }
+
+    // Root moves, nodes and table entries at SEARCH_DEPTH with and without symmetry-canonical
+    // keys, on the symmetric openings and the plain opening position. The chosen moves should be
+    // the same or mirror images of each other. Only the second of two passes is printed
+    private static void symmetry() {
+        List<String[]> positions = new ArrayList<>(Arrays.asList(BenchmarkPositions.SYMMETRIC_OPENINGS));
+        positions.add(BenchmarkPositions.OPENING);
+
+        System.out.println("Symmetry, depth " + SEARCH_DEPTH);
+        System.out.printf("%10s %10s %12s %14s %12s %14s %8s%n", "position", "symmetry", "root moves", "nodes",
+                "time (ms)", "table entries", "move");
+
+        long[] totalNodes = new long[2];
+        long[] totalEntries = new long[2];
+        for (int pass = 0; pass < 2; pass++) {
+            for (int i = 0; i < positions.size(); i++) {
+                for (int variant = 0; variant < 2; variant++) {
+                    SearchPosition search = new SearchPosition(positions.get(i));
+                    Minimax minimax = SearchPosition.minimax(SEARCH_DEPTH);
+                    minimax.setSymmetry(variant == 1);
+
+                    long start = System.nanoTime();
+                    int[] move = search.search(minimax);
+                    double millis = (System.nanoTime() - start) / 1e6;
+                    int rootMoves = MovesAnalyzer.getPossibleMoves(search.board, search.side, new long[search.board.movesLeft])
+                            - minimax.rootMovesPruned;
+                    int entries = minimax.getTable().occupied();
+                    if (pass == 0) {
+                        continue;
+                    }
+                    totalNodes[variant] += minimax.nodes;
+                    totalEntries[variant] += entries;
+
+                    System.out.printf("%10d %10s %12d %14d %12.1f %14d %8s%n", i, variant == 1 ? "on" : "off", rootMoves,
+                            minimax.nodes, millis, entries, move[0] + "," + move[1]);
+                }
+            }
+        }
+
+        System.out.printf("symmetry on: %.1f%% of the nodes, %.1f%% of the table entries%n",
+                100.0 * totalNodes[1] / totalNodes[0], 100.0 * totalEntries[1] / totalEntries[0]);
+    }
+
+    // Minimax with and without the quiescence search at several depths, the threat search off.
+    // Accuracy is the number of forced wins (threat suite and the tactical position) whose root
+    // score is a win, cost the nodes and time on those and on the midgame positions
+    private static void quiescence() {
+        List<String[]> tactics = new ArrayList<>(Arrays.asList(BenchmarkPositions.THREATS));
+        tactics.add(BenchmarkPositions.TACTICAL);
+
+        System.out.println("Quiescence search, threat search off, node limit " + Minimax.DEFAULT_QUIESCENCE_NODE_LIMIT + " per leaf");
+        System.out.printf("%6s %11s %8s %14s %12s %14s %14s %12s%n", "depth", "quiescence", "solved", "tactics nodes",
+                "tactics (ms)", "midgame nodes", "in quiescence", "midgame (ms)");
+
+        for (int pass = 0; pass < 2; pass++) {
+            for (int depth : QUIESCENCE_DEPTHS) {
+                for (boolean quiescence : new boolean[]{false, true}) {
+                    int solved = 0;
+                    long[] nodes = new long[2];
+                    long[] nanos = new long[2];
+                    long quiescenceNodes = 0;
+
+                    for (int set = 0; set < 2; set++) {
+                        List<String[]> positions = set == 0 ? tactics : Arrays.asList(BenchmarkPositions.MIDGAME);
+                        for (String[] rows : positions) {
+                            Minimax minimax = SearchPosition.minimax(depth);
+                            minimax.setQuiescence(quiescence);
+
+                            long start = System.nanoTime();
+                            new SearchPosition(rows).search(minimax);
+                            nanos[set] += System.nanoTime() - start;
+                            nodes[set] += minimax.nodes;
+                            if (set == 0 && minimax.bestScore > Minimax.MATE_THRESHOLD) {
+                                solved++;
+                            }
+                            if (set == 1) {
+                                quiescenceNodes += minimax.quiescenceNodes;
+                            }
+                        }
+                    }
+
+                    if (pass == 0) {
+                        continue;
+                    }
+                    System.out.printf("%6d %11s %5d/%-2d %14d %12.1f %14d %14d %12.1f%n", depth, quiescence ? "on" : "off",
+                            solved, tactics.size(), nodes[0], nanos[0] / 1e6, nodes[1], quiescenceNodes, nanos[1] / 1e6);
+                }
+            }
+        }
+    }
+
+    // Full-window alpha-beta against PVS with and without aspiration windows at SEARCH_DEPTH on
+    // the opening, midgame and threat positions. The chosen move should not change, only the node count
+    private static void windowSearch() {
+        String[] names = {"full", "pvs", "pvs+asp"};
+        List<String[]> positions = new ArrayList<>();
+        positions.add(BenchmarkPositions.OPENING);
+        positions.addAll(Arrays.asList(BenchmarkPositions.MIDGAME));
+        positions.addAll(Arrays.asList(BenchmarkPositions.THREATS));
+
+        System.out.println("Window search, depth " + SEARCH_DEPTH);
+        System.out.printf("%10s %10s %14s %12s %12s %8s%n", "position", "search", "nodes", "time (ms)", "re-searches", "move");
+
+        long[] totalNodes = new long[names.length];
+        int sameMove = 0;
+        for (int i = 0; i < positions.size(); i++) {
+            String fullMove = null;
+
+            for (int variant = 0; variant < names.length; variant++) {
+                Minimax minimax = SearchPosition.minimax(SEARCH_DEPTH);
+                minimax.setPrincipalVariationSearch(variant > 0);
+                minimax.setAspirationWindow(variant == 2 ? Minimax.DEFAULT_ASPIRATION_WINDOW : 0);
+
+                long start = System.nanoTime();
+                int[] move = new SearchPosition(positions.get(i)).search(minimax);
+                double millis = (System.nanoTime() - start) / 1e6;
+                String moveText = move[0] + "," + move[1];
+
+                if (variant == 0) {
+                    fullMove = moveText;
+                } else if (moveText.equals(fullMove)) {
+                    sameMove++;
+                }
+                totalNodes[variant] += minimax.nodes;
+
+                System.out.printf("%10d %10s %14d %12.1f %12d %8s%n", i, names[variant], minimax.nodes, millis,
+                        minimax.researches, moveText);
+            }
+        }
+
+        System.out.printf("nodes: full %d, pvs %d (%.1f%%), pvs+asp %d (%.1f%%), same move %d/%d%n",
+                totalNodes[0], totalNodes[1], 100.0 * totalNodes[1] / totalNodes[0],
+                totalNodes[2], 100.0 * totalNodes[2] / totalNodes[0], sameMove, 2 * positions.size());
+    }
+
+    // Response time of the AI over PONDER_MOVES moves from the opening position, against an
+    // opponent that takes THINK_MILLIS per move and plays the depth 2 choice, with and without
+    // pondering. The games are identical since pondering does not change the chosen move
+    private static void pondering() {
+        System.out.println("Pondering, " + THINK_MILLIS + " ms per opponent move, " + PONDER_MOVES + " AI moves");
+        System.out.printf("%6s %10s %16s %16s %8s%n", "depth", "ponder", "avg reply (ms)", "max reply (ms)", "hits");
+
+        for (int depth : PONDER_DEPTHS) {
+            for (boolean ponder : new boolean[]{false, true}) {
+                SearchPosition game = new SearchPosition(BenchmarkPositions.OPENING);
+                Board board = game.board;
+                Player ai = game.ai;
+                Player opponent = game.player;
+
+                Minimax minimax = new Minimax();
+                minimax.setMaxDepth(depth);
+                Minimax opponentEngine = new Minimax();
+                opponentEngine.setMaxDepth(2);
+
+                long totalNanos = 0;
+                long maxNanos = 0;
+                int moves = 0;
+                while (moves < PONDER_MOVES && board.movesLeft > 1) {
+                    long start = System.nanoTime();
+                    int[] move = minimax.findBestMove(board, ai, opponent);
+                    long nanos = System.nanoTime() - start;
+                    totalNanos += nanos;
+                    maxNanos = Math.max(maxNanos, nanos);
+                    moves++;
+
+                    board.makeAIMove(move[0], move[1], ai.getSymbol());
+                    if (MovesAnalyzer.checkWinningCondition(board, ai.getSymbol(), move[0], move[1])) break;
+                    if (ponder) {
+                        minimax.startPondering(board, ai, opponent);
+                    }
+
+                    long thinkStart = System.currentTimeMillis();
+                    int[] reply = opponentEngine.findBestMove(board, opponent, ai);
+                    sleepUntil(thinkStart + THINK_MILLIS);
+                    board.makeAIMove(reply[0], reply[1], opponent.getSymbol());
+                    if (MovesAnalyzer.checkWinningCondition(board, opponent.getSymbol(), reply[0], reply[1])) break;
+                }
+                minimax.shutdown();
+
+                System.out.printf("%6d %10s %16.1f %16.1f %8s%n", depth, ponder ? "on" : "off", totalNanos / 1e6 / moves,
+                        maxNanos / 1e6, ponder ? minimax.ponderHits + "/" + (minimax.ponderHits + minimax.ponderMisses) : "-");
+            }
+        }
+    }
+
+    private static void sleepUntil(long millis) {
+        long left = millis - System.currentTimeMillis();
+        if (left > 0) {
+            try {
+                Thread.sleep(left);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+}
@@ -0,0 +1,278 @@
+package gomoku;
+
+import java.util.Random;
+
+// Fixed positions shared by the benchmarks, rows from top to bottom, '.' is an empty cell.
+// Black moves first, so the side to move follows from the stone count
+public class BenchmarkPositions {
+
+    public static final String[] OPENING = {
+            ".........",
+            ".........",
+            ".........",
+            ".........",
+            "....BW...",
+            "....B....",
+            ".........",
+            ".........",
+            ".........",
+    };
+
+    // Openings that map onto themselves under some rotation or mirror, so symmetric moves and
+    // symmetric transpositions show up in the search
+    public static final String[][] SYMMETRIC_OPENINGS = {
+            {
+                    ".........",
+                    ".........",
+                    ".........",
+                    ".........",
+                    "....B....",
+                    ".........",
+                    ".........",
+                    ".........",
+                    ".........",
+            },
+            {
+                    ".........",
+                    ".........",
+                    ".........",
+                    ".........",
+                    "....B....",
+                    ".....W...",
+                    ".........",
+                    ".........",
+                    ".........",
+            },
+            {
+                    ".........",
+                    ".........",
+                    ".........",
+                    ".........",
+                    "....BW...",
+                    ".........",
+                    ".........",
+                    ".........",
+                    ".........",
+            },
+            {
+                    ".........",
+                    ".........",
+                    ".........",
+                    "...B.....",
+                    "....B....",
+                    ".....W...",
+                    ".........",
+                    ".........",
+                    ".........",
+            },
+    };
+
+    // Quiet middlegame positions
+    public static final String[][] MIDGAME = {
+            {
+                    ".........",
+                    ".........",
+                    ".........",
+                    "...W.....",
+                    "....BW...",
+                    "....BB...",
+                    "......W..",
+                    ".........",
+                    ".........",
+            },
+            {
+                    ".........",
+                    ".........",
+                    "...B.....",
+                    "...WBW...",
+                    "...BWB...",
+                    "....W....",
+                    ".........",
+                    ".........",
+                    ".........",
+            },
+            {
+                    ".........",
+                    ".........",
+                    "..W.B....",
+                    "...BW....",
+                    "..BWB.W..",
+                    "...B.W...",
+                    "....W.B..",
+                    ".........",
+                    ".........",
+            },
+    };
+
+    // Black to move wins in one and must not waste the move blocking White's broken four
+    public static final String[] TACTICAL = {
+            ".........",
+            ".........",
+            "..BBBB...",
+            "..WWW.W..",
+            "....B....",
+            ".........",
+            "......W..",
+            ".........",
+            ".........",
+    };
+
+    // Forced wins for the side to move taken from self-play games, from a win in three plies to
+    // longer VCF and VCT sequences. Several start with broken fours or threes that move scoring
+    // rates at zero, so a fixed-depth search never tries them
+    public static final String[][] THREATS = {
+            {
+                    ".........",
+                    ".........",
+                    ".........",
+                    "...B.....",
+                    "..BW.WW..",
+                    "..BB.WB..",
+                    "...BWWW..",
+                    "...B.B...",
+                    ".........",
+            },
+            {
+                    ".........",
+                    "........B",
+                    ".......W.",
+                    "...W..W..",
+                    "...WBWW..",
+                    "..BBWB...",
+                    "...BBWB..",
+                    "...BW.BB.",
+                    "........W",
+            },
+            {
+                    ".........",
+                    ".....W...",
+                    ".....BB..",
+                    ".....B...",
+                    "..W..B...",
+                    "..W......",
+                    "...W.....",
+                    ".........",
+                    ".........",
+            },
+            {
+                    ".........",
+                    ".........",
+                    ".B......B",
+                    "..WBBBBW.",
+                    "BB.WBBWW.",
+                    ".BWWWWB..",
+                    ".WBWWWBW.",
+                    "...BW.B..",
+                    "....W....",
+            },
+            {
+                    ".........",
+                    ".........",
+                    ".........",
+                    ".........",
+                    "..WB.....",
+                    ".WBBB....",
+                    ".WWWB....",
+                    ".........",
+                    ".........",
+            },
+            {
+                    "...W.W...",
+                    "..WWBBB..",
+                    "...BWBW..",
+                    "....BBBW.",
+                    "...WBBBBW",
+                    "....BWBWW",
+                    "...W.BWW.",
+                    "....WB...",
+                    ".........",
+            },
+            {
+                    ".....B...",
+                    ".....W...",
+                    ".....W...",
+                    "..W..W...",
+                    "...B.W.B.",
+                    "...WBBBBW",
+                    ".....B...",
+                    "....W....",
+                    ".........",
+            },
+    };
+
+    public static String[] byName(String name) {
+        if (name.equals("opening")) return OPENING;
+        if (name.equals("tactical")) return TACTICAL;
+        if (name.startsWith("threats")) return THREATS[Integer.parseInt(name.substring("threats".length()))];
+        if (name.startsWith("midgame")) return MIDGAME[Integer.parseInt(name.substring("midgame".length()))];
+        throw new IllegalArgumentException("Unknown position " + name);
+    }
+
+    public static Board parseBoard(String[] rows) {
+        return parseBoard(rows, rows.length);
+    }
+
+    // Places the position in the middle of a board of the given size
+    public static Board parseBoard(String[] rows, int size) {
+        return parseBoard(rows, size, Board.DEFAULT_CANDIDATE_RADIUS);
+    }
+
+    // Centered on a size x size board whose candidate moves lie within candidateRadius of a stone
+    public static Board parseBoard(String[] rows, int size, int candidateRadius) {
+        Board board = new Board(size, candidateRadius);
+        int offset = (size - rows.length) / 2;
+
+        for (int y = 0; y < rows.length; y++) {
+            for (int x = 0; x < rows[y].length(); x++) {
+                char cell = rows[y].charAt(x);
+                if (cell != '.') {
+                    board.makeAIMove(x + offset, y + offset, cell);
+                }
+            }
+        }
+
+        return board;
+    }
+
+    // A position reached by both sides playing one of their three best static moves at random,
+    // but never a five, until the given fraction of the board is filled. Returns null when a side
+    // had nothing but fives left. The same seed always gives the same position
+    public static Board randomEndgame(int size, double fullness, long seed) {
+        Board board = new Board(size);
+        Random random = new Random(seed);
+        long[] moves = new long[size * size];
+        char toMove = 'B';
+
+        while (size * size - board.movesLeft < fullness * size * size) {
+            int candidates = MovesAnalyzer.getPossibleMoves(board, toMove, moves);
+            int numMoves = 0;
+            for (int i = 0; i < candidates; i++) {
+                int cell = MovesAnalyzer.moveCell(moves[i]);
+                if (!MovesAnalyzer.checkWinningCondition(board, toMove, cell % size, cell / size)) {
+                    moves[numMoves++] = moves[i];
+                }
+            }
+            if (numMoves == 0) {
+                return null;
+            }
+
+            int cell = MovesAnalyzer.moveCell(moves[random.nextInt(Math.min(3, numMoves))]);
+            board.makeAIMove(cell % size, cell / size, toMove);
+            toMove = toMove == 'B' ? 'W' : 'B';
+        }
+
+        return board;
+    }
+
+    public static char sideToMove(Board board) {
+        int stones = board.col * board.row - board.movesLeft;
+        return stones % 2 == 0 ? 'B' : 'W';
+    }
+
+    public static Player playerWithSymbol(char symbol) {
+        Player player = new Player();
+        player.setName(String.valueOf(symbol));
+        player.setSymbol(symbol);
+        return player;
+    }
+}
@@ -0,0 +1,78 @@
+package gomoku;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+// Leaf evaluation of both sides on random self-play positions: the scalar full board scan, its
+// Vector API version and the per-line scores Board keeps. Time per op is one position. The forks
+// get the vector module, VectorEvaluationTest checks that both scans give the same scores
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = {"--add-modules", "jdk.incubator.vector"})
+public class EvaluationBenchmark {
+
+    private static final int POSITIONS = 20;
+
+    @Param({"9", "15", "19"})
+    public int size;
+
+    @Param({"0.2", "0.4", "0.6"})
+    public double fullness;
+
+    private Board[] boards;
+    private int next = 0;
+
+    @Setup
+    public void setUp() {
+        List<Board> found = new ArrayList<>();
+        for (int seed = 0; seed < POSITIONS; seed++) {
+            Board board = BenchmarkPositions.randomEndgame(size, fullness, seed);
+            if (board != null) {
+                found.add(board);
+            }
+        }
+        boards = found.toArray(new Board[0]);
+    }
+
+    private Board nextBoard() {
+        next = next + 1 == boards.length ? 0 : next + 1;
+        return boards[next];
+    }
+
+    @Benchmark
+    public void scalar(Blackhole blackhole) {
+        Board board = nextBoard();
+        blackhole.consume(MovesAnalyzer.evaluateSymbolBoardState(board, 'B'));
+        blackhole.consume(MovesAnalyzer.evaluateSymbolBoardState(board, 'W'));
+    }
+
+    @Benchmark
+    public void vector(Blackhole blackhole) {
+        Board board = nextBoard();
+        blackhole.consume(VectorEvaluation.evaluateSymbol(board, 'B'));
+        blackhole.consume(VectorEvaluation.evaluateSymbol(board, 'W'));
+    }
+
+    // What the search calls at a leaf, both sides in one
+    @Benchmark
+    public void lines(Blackhole blackhole) {
+        blackhole.consume(MovesAnalyzer.evaluateBoardState(nextBoard(), 'B'));
+    }
+}
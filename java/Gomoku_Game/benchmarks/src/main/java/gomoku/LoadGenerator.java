@@ -0,0 +1,227 @@
+package gomoku;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.net.InetAddress;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+// Plays many games at once against a GameServer and reports move latency and games/sec.
+// Usage: java -cp benchmarks.jar gomoku.LoadGenerator [--games N] [--concurrent C]
+//        [--connections K] [--port P] [--size S] [--workers W] [--queue Q] [--engine CONFIG]
+// Without --port a server is started in this JVM with the given size, workers, queue and engine.
+// The client side plays one of the three best static moves at random, so games differ
+public class LoadGenerator {
+
+    private int games = 1000;
+    private int concurrent = 1000;
+    private int connections = 8;
+    private int port = -1;
+    private int boardSize = Board.DEFAULT_SIZE;
+    private int workers = Runtime.getRuntime().availableProcessors();
+    private int queueCapacity = 64;
+    private String engine = "depth=2";
+    // Pause before a move that was answered with BUSY is sent again
+    private static final long BUSY_BACKOFF_MILLIS = 2;
+
+    private final AtomicInteger gamesStarted = new AtomicInteger();
+    private final AtomicInteger gamesFinished = new AtomicInteger();
+    private final AtomicLong moves = new AtomicLong();
+    private final AtomicLong busyReplies = new AtomicLong();
+    private final LatencyHistogram latency = new LatencyHistogram();
+
+    public static void main(String[] args) throws Exception {
+        LoadGenerator generator = new LoadGenerator();
+
+        for (int i = 0; i + 1 < args.length; i += 2) {
+            String value = args[i + 1];
+            switch (args[i]) {
+                case "--games" -> generator.games = Integer.parseInt(value);
+                case "--concurrent" -> generator.concurrent = Integer.parseInt(value);
+                case "--connections" -> generator.connections = Integer.parseInt(value);
+                case "--port" -> generator.port = Integer.parseInt(value);
+                case "--size" -> generator.boardSize = Integer.parseInt(value);
+                case "--workers" -> generator.workers = Integer.parseInt(value);
+                case "--queue" -> generator.queueCapacity = Integer.parseInt(value);
+                case "--engine" -> generator.engine = value;
+                default -> {
+                    System.out.println("Unknown option " + args[i]);
+                    return;
+                }
+            }
+        }
+
+        generator.run();
+    }
+
+    public void run() throws Exception {
+        GameServer server = null;
+        if (port < 0) {
+            server = new GameServer(0, boardSize, workers, queueCapacity, Tournament.EngineConfig.parse(engine));
+            server.start();
+            port = server.getPort();
+            GameServer started = server;
+            Thread acceptor = new Thread(started::serve, "accept");
+            acceptor.setDaemon(true);
+            acceptor.start();
+            System.out.println("Server: " + workers + " engine workers (" + engine + "), queue " + queueCapacity
+                    + ", " + boardSize + "x" + boardSize);
+        }
+        System.out.println(games + " games, " + concurrent + " at a time over " + connections + " connections");
+
+        Thread[] clients = new Thread[connections];
+        long start = System.nanoTime();
+        for (int i = 0; i < connections; i++) {
+            int inFlight = concurrent / connections + (i < concurrent % connections ? 1 : 0);
+            Client client = new Client(inFlight, new Random(i + 1));
+            clients[i] = new Thread(client::run, "client-" + i);
+            clients[i].start();
+        }
+        for (Thread client : clients) {
+            client.join();
+        }
+        double seconds = (System.nanoTime() - start) / 1e9;
+
+        System.out.println("-".repeat(60));
+        System.out.printf("%d games, %d AI moves, %d BUSY replies in %.1f s%n", gamesFinished.get(), moves.get(), busyReplies.get(), seconds);
+        System.out.printf("move latency p50 %.1f ms, p99 %.1f ms%n", latency.percentileMillis(50), latency.percentileMillis(99));
+        System.out.printf("%.1f games/sec, %.0f moves/sec%n", gamesFinished.get() / seconds, moves.get() / seconds);
+        System.out.println("Server " + serverStats());
+
+        if (server != null) {
+            server.stop();
+        }
+    }
+
+    private String serverStats() throws IOException {
+        try (Socket socket = new Socket(InetAddress.getLoopbackAddress(), port);
+             BufferedReader reader = new BufferedReader(new InputStreamReader(socket.getInputStream(), StandardCharsets.UTF_8));
+             BufferedWriter writer = new BufferedWriter(new OutputStreamWriter(socket.getOutputStream(), StandardCharsets.UTF_8))) {
+            writer.write("STATS\nBYE\n");
+            writer.flush();
+            return reader.readLine();
+        }
+    }
+
+    // One connection with its share of the games. Only this thread reads and writes the socket,
+    // every reply is answered with the next command of the same game
+    private class Client {
+        private final int inFlight;
+        private final Random random;
+        private final Map<Integer, ClientGame> running = new HashMap<>();
+        // NEW commands whose GAME reply has not arrived yet
+        private int pendingNew = 0;
+        private long[] moveBuffer;
+        private BufferedWriter writer;
+
+        Client(int inFlight, Random random) {
+            this.inFlight = inFlight;
+            this.random = random;
+        }
+
+        private class ClientGame {
+            final int id;
+            final Board board = new Board(boardSize);
+            long sentNanos;
+            int lastX;
+            int lastY;
+
+            ClientGame(int id) {
+                this.id = id;
+            }
+        }
+
+        void run() {
+            try (Socket socket = new Socket(InetAddress.getLoopbackAddress(), port);
+                 BufferedReader reader = new BufferedReader(new InputStreamReader(socket.getInputStream(), StandardCharsets.UTF_8))) {
+                writer = new BufferedWriter(new OutputStreamWriter(socket.getOutputStream(), StandardCharsets.UTF_8));
+                moveBuffer = new long[boardSize * boardSize];
+
+                for (int i = 0; i < inFlight; i++) {
+                    startGame();
+                }
+                writer.flush();
+
+                String line;
+                while ((!running.isEmpty() || pendingNew > 0) && (line = reader.readLine()) != null) {
+                    handle(line.split(" "));
+                    writer.flush();
+                }
+                writer.write("BYE\n");
+                writer.flush();
+            } catch (IOException | InterruptedException e) {
+                System.out.println("Client failed: " + e);
+            }
+        }
+
+        private void startGame() throws IOException {
+            if (gamesStarted.getAndIncrement() < games) {
+                pendingNew++;
+                writer.write("NEW B\n");
+            }
+        }
+
+        private void handle(String[] words) throws IOException, InterruptedException {
+            switch (words[0]) {
+                case "GAME" -> {
+                    pendingNew--;
+                    ClientGame game = new ClientGame(Integer.parseInt(words[1]));
+                    running.put(game.id, game);
+                    play(game);
+                }
+                case "MOVE" -> {
+                    ClientGame game = running.get(Integer.parseInt(words[1]));
+                    latency.record(System.nanoTime() - game.sentNanos);
+                    moves.incrementAndGet();
+                    int x = Integer.parseInt(words[2]);
+                    int y = Integer.parseInt(words[3]);
+                    game.board.makeAIMove(x, y, 'W');
+                    // an AI win or a full board is followed by END
+                    if (!MovesAnalyzer.checkWinningCondition(game.board, 'W', x, y) && game.board.movesLeft > 0) {
+                        play(game);
+                    }
+                }
+                case "BUSY" -> {
+                    busyReplies.incrementAndGet();
+                    Thread.sleep(BUSY_BACKOFF_MILLIS);
+                    if (words.length == 1) {
+                        writer.write("NEW B\n");
+                    } else {
+                        ClientGame game = running.get(Integer.parseInt(words[1]));
+                        send(game);
+                    }
+                }
+                case "END" -> {
+                    running.remove(Integer.parseInt(words[1]));
+                    gamesFinished.incrementAndGet();
+                    startGame();
+                }
+                default -> throw new IOException("Unexpected reply " + String.join(" ", words));
+            }
+        }
+
+        // One of the three best static moves. A winning move is answered with END instead of MOVE.
+        // Latency counts from the first time the move is sent, BUSY retries included
+        private void play(ClientGame game) throws IOException {
+            int numMoves = MovesAnalyzer.getPossibleMoves(game.board, 'B', moveBuffer);
+            int cell = MovesAnalyzer.moveCell(moveBuffer[random.nextInt(Math.min(3, numMoves))]);
+            game.lastX = cell % boardSize;
+            game.lastY = cell / boardSize;
+            game.board.makeAIMove(game.lastX, game.lastY, 'B');
+            game.sentNanos = System.nanoTime();
+            send(game);
+        }
+
+        private void send(ClientGame game) throws IOException {
+            writer.write("MOVE " + game.id + " " + game.lastX + " " + game.lastY + "\n");
+        }
+    }
+}
@@ -0,0 +1,81 @@
+package gomoku;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+// The per-node building blocks of the search on the fixed positions. -p size=9,15,19 and
+// -p candidateRadius=1,2,3 show how move generation grows with the board and the candidate set
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class MovesAnalyzerBenchmark {
+
+    @Param({"opening", "midgame0", "midgame1", "midgame2", "tactical"})
+    public String position;
+
+    @Param({"9"})
+    public int size;
+
+    @Param({"2"})
+    public int candidateRadius;
+
+    // With the cache every getPossibleMoves after the first only reads the scores it cached,
+    // false scores every move each time as before the cache existed
+    @Param({"false", "true"})
+    public boolean scoreCache;
+
+    private Board board;
+    private char symbol;
+    private long[] moves;
+    private int checkX;
+    private int checkY;
+
+    @Setup
+    public void setUp() {
+        SearchPosition search = new SearchPosition(BenchmarkPositions.byName(position), size, candidateRadius);
+        board = search.board;
+        board.setScoreCache(scoreCache);
+        symbol = search.side;
+        moves = new long[board.col * board.row];
+
+        // the winning condition is checked for the best move, as the search does after playing it
+        MovesAnalyzer.getPossibleMoves(board, symbol, moves);
+        int cell = MovesAnalyzer.moveCell(moves[0]);
+        checkX = cell % board.col;
+        checkY = cell / board.col;
+    }
+
+    @Benchmark
+    public int getPossibleMoves() {
+        return MovesAnalyzer.getPossibleMoves(board, symbol, moves);
+    }
+
+    @Benchmark
+    public int evaluateBoardState() {
+        return MovesAnalyzer.evaluateBoardState(board, symbol);
+    }
+
+    @Benchmark
+    public boolean checkWinningCondition() {
+        return MovesAnalyzer.checkWinningCondition(board, symbol, checkX, checkY);
+    }
+
+    @Benchmark
+    public boolean isAnyoneWin() {
+        return MovesAnalyzer.isAnyoneWin(board);
+    }
+}
@@ -0,0 +1,75 @@
+package gomoku;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+// Lookups in a mapped book of random positions, half of them hits and half misses
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class OpeningBookBenchmark {
+
+    @Param({"1000", "1000000"})
+    public int entries;
+
+    private Path file;
+    private OpeningBook book;
+    private long[] keys;
+    private int next = 0;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        Random random = new Random(12);
+        Map<Long, Integer> moves = new HashMap<>();
+        keys = new long[1024];
+
+        while (moves.size() < entries) {
+            moves.put(random.nextLong(), random.nextInt(81));
+        }
+        int i = 0;
+        for (long key : moves.keySet()) {
+            if (i >= keys.length / 2) break;
+            keys[i++] = key;
+        }
+        while (i < keys.length) {
+            keys[i++] = random.nextLong();
+        }
+
+        file = Files.createTempFile("opening-book", ".bin");
+        OpeningBook.write(file, Board.DEFAULT_SIZE, moves);
+        book = OpeningBook.open(file);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        Files.deleteIfExists(file);
+    }
+
+    @Benchmark
+    public int lookup() {
+        next = (next + 1) & (keys.length - 1);
+        return book.lookup(keys[next]);
+    }
+}
@@ -0,0 +1,97 @@
+package gomoku;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+// Full searches of the fixed positions, ops/sec is searches per second. The defaults search the
+// 9x9 positions on one thread; -p threads=1,2,4,8 gives the Lazy SMP speedup, -p size=9,15,19
+// and -p candidateRadius=1,2,3 the cost of bigger boards and candidate sets
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+public class SearchBenchmark {
+
+    @Param({"opening", "midgame0", "midgame1", "midgame2", "tactical"})
+    public String position;
+
+    @Param({"4"})
+    public int depth;
+
+    // The position is placed in the middle of a board of this size
+    @Param({"9"})
+    public int size;
+
+    @Param({"2"})
+    public int candidateRadius;
+
+    @Param({"1"})
+    public int threads;
+
+    // false scores every move of every node from scratch
+    @Param({"true"})
+    public boolean scoreCache;
+
+    private SearchPosition search;
+    private Minimax minimax;
+
+    // Reported next to the primary result, normalized by time this is nodes/sec
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.OPERATIONS)
+    public static class Nodes {
+        public long nodes;
+    }
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        search = new SearchPosition(BenchmarkPositions.byName(position), size, candidateRadius);
+        search.board.setScoreCache(scoreCache);
+        minimax = SearchPosition.minimax(depth);
+        minimax.setThreads(threads);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        minimax.shutdown();
+    }
+
+    // Every search starts cold, otherwise later invocations would only read the table, the
+    // board's move score cache and the history the previous search left behind
+    @Setup(Level.Invocation)
+    public void clearTable() {
+        minimax.getTable().clear();
+        minimax.clearOrdering();
+        search.board.clearScoreCache();
+    }
+
+    @Benchmark
+    public int[] findBestMove(Nodes counter) {
+        int[] move = search.search(minimax);
+        counter.nodes += minimax.nodes;
+        return move;
+    }
+
+    // The same search with the SearchMetrics counters compiled in, the difference to
+    // findBestMove is what they cost
+    @Benchmark
+    @Fork(value = 1, jvmArgsAppend = "-Dgomoku.metrics=true")
+    public int[] findBestMoveWithMetrics(Nodes counter) {
+        return findBestMove(counter);
+    }
+}
@@ -0,0 +1,43 @@
+package gomoku;
+
+// A benchmark position with its side to move, ready to be searched. Shared by the JMH benchmarks
+// and the Benchmark reports so they all set up the position and the engine the same way
+public class SearchPosition {
+
+    public final Board board;
+    public final char side;
+    public final Player ai;
+    public final Player player;
+
+    public SearchPosition(Board board) {
+        this.board = board;
+        this.side = BenchmarkPositions.sideToMove(board);
+        this.ai = BenchmarkPositions.playerWithSymbol(side);
+        this.player = BenchmarkPositions.playerWithSymbol(side == 'B' ? 'W' : 'B');
+    }
+
+    public SearchPosition(String[] rows) {
+        this(BenchmarkPositions.parseBoard(rows));
+    }
+
+    public SearchPosition(String[] rows, int size) {
+        this(BenchmarkPositions.parseBoard(rows, size));
+    }
+
+    public SearchPosition(String[] rows, int size, int candidateRadius) {
+        this(BenchmarkPositions.parseBoard(rows, size, candidateRadius));
+    }
+
+    // Minimax to a fixed depth without the threat search, which answers the tactical and some
+    // midgame positions without searching at all
+    public static Minimax minimax(int depth) {
+        Minimax minimax = new Minimax();
+        minimax.setMaxDepth(depth);
+        minimax.setThreatSearch(false);
+        return minimax;
+    }
+
+    public int[] search(Engine engine) {
+        return engine.findBestMove(board, ai, player);
+    }
+}
@@ -0,0 +1,594 @@
+package gomoku;
+
+import java.util.Arrays;
+import java.util.Random;
+
+public class Board {
+    public char[][] board;
+    public char EMPTY = '_';
+    public int col;
+    public int row;
+    public static final int DEFAULT_SIZE = 9;
+    // A five has to fit on the board
+    public static final int MIN_SIZE = 5;
+    // Lines are stored in longs, and the five masks need a few spare bits above the last cell
+    public static final int MAX_SIZE = 32;
+    public int movesLeft;
+
+    // Packed representation kept in sync with board[][]: one long per line and color,
+    // bit i is the i-th cell along the line. Lines are indexed in the same direction
+    // order as MovesAnalyzer.arrayWithDeltaValuesToFindHalfAdjacentCells:
+    // diagonals (x - y), columns, anti-diagonals (x + y), rows
+    public static final int DIRECTIONS = 4;
+    public long[][] lines;     // [color][line]
+    public long[] lineMask;    // [line] cells that exist on the line
+    public int[][] lineOf;     // [direction][cell]
+    public int[][] bitOf;      // [direction][cell]
+    public int[][] cellAt;     // [line][bit] the other way round
+
+    // The same lines as one byte per cell for VectorEvaluation: the lines of a direction are laid
+    // end to end with a LANE_BORDER cell after each, and LANE_PADDING border cells before the first
+    // and after the last line so a vector can read a few cells past either end of a line.
+    // Cells hold LANE_EMPTY or color index + 1. Only kept when MovesAnalyzer.VECTOR_EVALUATION is
+    // set, lanes is null otherwise
+    public static final byte LANE_EMPTY = 0;
+    public static final byte LANE_BORDER = 3;
+    public static final int LANE_PADDING = MovesAnalyzer.VECTOR_EVALUATION ? VectorEvaluation.LANE_PADDING : 0;
+    public byte[][] lanes;     // [direction][lane]
+    public int[][] laneOf;     // [direction][cell]
+    public int[] laneCount;    // [direction] lanes in use, padding excluded
+
+    // Zobrist hash of the stones on the board, updated incrementally on every move.
+    // The keys come from a fixed seed so equal positions hash equally across boards
+    private static final long ZOBRIST_SEED = 0x9E3779B97F4A7C15L;
+    private long[][] zobristKeys; // [color][cell]
+    public long hash;
+
+    // The 8 symmetries of the square board: identity, rotations by 90, 180 and 270 degrees,
+    // the left-right and top-bottom mirrors and the two diagonal mirrors
+    public static final int SYMMETRIES = 8;
+    private static final int[] INVERSE_SYMMETRY = {0, 3, 2, 1, 4, 5, 6, 7};
+    public int[][] symmetricCell;  // [symmetry][cell] the cell the symmetry maps it to
+    // Hash of the board mapped by each symmetry, [0] equals hash. The smallest of them is the
+    // same for all positions of an equivalence class and keys the caches
+    public long[] symmetricHashes; // [symmetry]
+
+    // Incremental evaluation: pattern score of every line for both colors and their sums,
+    // only the four lines through a changed cell are rescored on make/undo
+    public int[][] lineScores;     // [color][line]
+    public int[] scores;           // [color]
+    // Lines holding a run longer than five, the per-line scores are not exact for them
+    public boolean[][] lineOverline; // [color][line]
+    public int[] overlines;          // [color]
+
+    // Candidate moves: empty cells at most candidateRadius from a stone (in both x and y).
+    // nearbyStones counts the stones in that square around each cell, the bitset holds the
+    // empty cells with a count above 0. Bit x * row + y stands for cell (x, y), the column by
+    // column order move generation has always used, so equal scores keep their order.
+    // A move updates the (2 * radius + 1)^2 cells around it
+    public static final int DEFAULT_CANDIDATE_RADIUS = 2;
+    public int candidateRadius;
+    private int[] nearbyStones;    // [cell]
+    public long[] candidates;      // bit x * row + y
+    public int candidateCount;
+
+    // Move scores of empty cells for both colors as MovesAnalyzer.evaluateMove computes them,
+    // NO_SCORE until they are first asked for. A stone only changes the scores of cells up to
+    // SCORE_REACH steps away on its 8 rays, so a move saves and clears just those; undo puts
+    // the saved values back without scoring anything. Frame k of the undo stack belongs to the
+    // move played with k stones on the board
+    public static final int NO_SCORE = -1;
+    public static final int SCORE_REACH = 5;
+    private static final int SCORE_RAY_CELLS = 2 * DIRECTIONS * SCORE_REACH;
+    private boolean useScoreCache = true;
+    public int[][] moveScores;       // [color][cell]
+    private int[] savedCells;        // undo stack, one entry per cleared cell
+    private int[][] savedScores;     // [color][entry]
+    private int savedCount;
+    private int[] frameStart;        // [frame] first stack entry of the move
+    private int[] frameCell;         // [frame] cell of the move, -1 once taken back
+    public long scoreCacheHits;
+    public long scoreCacheMisses;
+
+
+    public Board() {
+        this(DEFAULT_SIZE);
+    }
+
+    // Square board of size x size cells, between MIN_SIZE and MAX_SIZE
+    public Board(int size) {
+        this(size, DEFAULT_CANDIDATE_RADIUS);
+    }
+
+    // Candidate moves are the empty cells within candidateRadius of a stone, at least 1
+    public Board(int size, int candidateRadius) {
+        checkSize(size);
+        if (candidateRadius < 1) {
+            throw new IllegalArgumentException("Candidate radius must be at least 1, got " + candidateRadius);
+        }
+        this.col = size;
+        this.row = size;
+        this.candidateRadius = candidateRadius;
+        movesLeft = col * row;
+        this.board = buildBoard();
+        buildLines();
+        zobristKeys = buildZobristKeys(row * col);
+        buildSymmetries();
+        nearbyStones = new int[row * col];
+        candidates = new long[(row * col + 63) / 64];
+        buildScoreCache(new int[][]{new int[row * col], new int[row * col]});
+        Arrays.fill(moveScores[0], NO_SCORE);
+        Arrays.fill(moveScores[1], NO_SCORE);
+    }
+
+    // For tools that take the size as an option and create their boards later
+    public static void checkSize(int size) {
+        if (size < MIN_SIZE || size > MAX_SIZE) {
+            throw new IllegalArgumentException("Board size must be between " + MIN_SIZE + " and " + MAX_SIZE + ", got " + size);
+        }
+    }
+
+    // Independent copy for another search thread, the lookup tables are shared read-only
+    public Board(Board other) {
+        this.col = other.col;
+        this.row = other.row;
+        this.movesLeft = other.movesLeft;
+        this.board = new char[row][];
+        for (int i = 0; i < row; i++) {
+            this.board[i] = other.board[i].clone();
+        }
+
+        this.lines = new long[][]{other.lines[0].clone(), other.lines[1].clone()};
+        this.lineMask = other.lineMask;
+        this.lineOf = other.lineOf;
+        this.bitOf = other.bitOf;
+        this.cellAt = other.cellAt;
+        if (other.lanes != null) {
+            this.lanes = new byte[DIRECTIONS][];
+            for (int dir = 0; dir < DIRECTIONS; dir++) {
+                this.lanes[dir] = other.lanes[dir].clone();
+            }
+        }
+        this.laneOf = other.laneOf;
+        this.laneCount = other.laneCount;
+        this.zobristKeys = other.zobristKeys;
+        this.hash = other.hash;
+        this.symmetricCell = other.symmetricCell;
+        this.symmetricHashes = other.symmetricHashes.clone();
+
+        this.lineScores = new int[][]{other.lineScores[0].clone(), other.lineScores[1].clone()};
+        this.scores = other.scores.clone();
+        this.lineOverline = new boolean[][]{other.lineOverline[0].clone(), other.lineOverline[1].clone()};
+        this.overlines = other.overlines.clone();
+
+        this.candidateRadius = other.candidateRadius;
+        this.nearbyStones = other.nearbyStones.clone();
+        this.candidates = other.candidates.clone();
+        this.candidateCount = other.candidateCount;
+
+        // the scores hold for the copied position, the moves that led to it cannot be taken back
+        this.useScoreCache = other.useScoreCache;
+        buildScoreCache(new int[][]{other.moveScores[0].clone(), other.moveScores[1].clone()});
+    }
+
+
+    private void buildScoreCache(int[][] scores) {
+        int cells = row * col;
+        moveScores = scores;
+        savedCells = new int[cells * SCORE_RAY_CELLS];
+        savedScores = new int[2][cells * SCORE_RAY_CELLS];
+        frameStart = new int[cells];
+        frameCell = new int[cells];
+        Arrays.fill(frameCell, -1);
+    }
+
+    private char[][] buildBoard() {
+        board = new char[row][col];
+
+        for (int i = 0; i < row; i++) {
+            Arrays.fill(board[i], EMPTY);
+        }
+
+        return board;
+    }
+
+    private void buildLines() {
+        int diagonals = row + col - 1;
+        int lineCount = 2 * diagonals + row + col;
+
+        lines = new long[2][lineCount];
+        lineMask = new long[lineCount];
+        lineScores = new int[2][lineCount];
+        scores = new int[2];
+        lineOverline = new boolean[2][lineCount];
+        overlines = new int[2];
+        lineOf = new int[DIRECTIONS][row * col];
+        bitOf = new int[DIRECTIONS][row * col];
+        cellAt = new int[lineCount][Math.max(row, col)];
+
+        for (int y = 0; y < row; y++) {
+            for (int x = 0; x < col; x++) {
+                int cell = y * col + x;
+
+                lineOf[0][cell] = x - y + row - 1;
+                bitOf[0][cell] = x;
+
+                lineOf[1][cell] = diagonals + x;
+                bitOf[1][cell] = y;
+
+                lineOf[2][cell] = diagonals + col + x + y;
+                bitOf[2][cell] = x;
+
+                lineOf[3][cell] = 2 * diagonals + col + y;
+                bitOf[3][cell] = x;
+
+                for (int dir = 0; dir < DIRECTIONS; dir++) {
+                    lineMask[lineOf[dir][cell]] |= 1L << bitOf[dir][cell];
+                    cellAt[lineOf[dir][cell]][bitOf[dir][cell]] = cell;
+                }
+            }
+        }
+
+        if (MovesAnalyzer.VECTOR_EVALUATION) {
+            buildLanes();
+        }
+    }
+
+    // Lines are numbered direction by direction as in buildLines
+    private void buildLanes() {
+        int diagonals = row + col - 1;
+        int[] firstLine = {0, diagonals, diagonals + col, 2 * diagonals + col, lineMask.length};
+        lanes = new byte[DIRECTIONS][];
+        laneOf = new int[DIRECTIONS][row * col];
+        laneCount = new int[DIRECTIONS];
+        int[] laneOfLine = new int[lineMask.length];
+
+        for (int dir = 0; dir < DIRECTIONS; dir++) {
+            int lane = LANE_PADDING;
+            for (int line = firstLine[dir]; line < firstLine[dir + 1]; line++) {
+                laneOfLine[line] = lane - Long.numberOfTrailingZeros(lineMask[line]);
+                lane += Long.bitCount(lineMask[line]) + 1;
+            }
+            laneCount[dir] = lane - LANE_PADDING;
+            lanes[dir] = new byte[lane + LANE_PADDING];
+            Arrays.fill(lanes[dir], LANE_BORDER);
+        }
+
+        for (int cell = 0; cell < row * col; cell++) {
+            for (int dir = 0; dir < DIRECTIONS; dir++) {
+                laneOf[dir][cell] = laneOfLine[lineOf[dir][cell]] + bitOf[dir][cell];
+                lanes[dir][laneOf[dir][cell]] = LANE_EMPTY;
+            }
+        }
+    }
+
+    private static long[][] buildZobristKeys(int cells) {
+        Random random = new Random(ZOBRIST_SEED);
+        long[][] keys = new long[2][cells];
+
+        for (int color = 0; color < 2; color++) {
+            for (int cell = 0; cell < cells; cell++) {
+                keys[color][cell] = random.nextLong();
+            }
+        }
+
+        return keys;
+    }
+
+    private void buildSymmetries() {
+        int n = col - 1;
+        symmetricCell = new int[SYMMETRIES][row * col];
+        symmetricHashes = new long[SYMMETRIES];
+
+        for (int y = 0; y < row; y++) {
+            for (int x = 0; x < col; x++) {
+                int cell = y * col + x;
+                symmetricCell[0][cell] = cell;
+                symmetricCell[1][cell] = x * col + n - y;
+                symmetricCell[2][cell] = (n - y) * col + n - x;
+                symmetricCell[3][cell] = (n - x) * col + y;
+                symmetricCell[4][cell] = y * col + n - x;
+                symmetricCell[5][cell] = (n - y) * col + x;
+                symmetricCell[6][cell] = x * col + y;
+                symmetricCell[7][cell] = (n - x) * col + n - y;
+            }
+        }
+    }
+
+    // The symmetry that maps this position to the representative of its equivalence class
+    public int canonicalSymmetry() {
+        int best = 0;
+        for (int symmetry = 1; symmetry < SYMMETRIES; symmetry++) {
+            if (symmetricHashes[symmetry] < symmetricHashes[best]) {
+                best = symmetry;
+            }
+        }
+        return best;
+    }
+
+    // Equal for every position that is a rotation or mirror image of this one
+    public long canonicalHash() {
+        return symmetricHashes[canonicalSymmetry()];
+    }
+
+    // canonicalHash of the position after symbol plays cell, without playing it
+    public long canonicalHashAfter(int cell, char symbol) {
+        long[] keys = zobristKeys[colorIndex(symbol)];
+        long best = symmetricHashes[0] ^ keys[cell];
+        for (int symmetry = 1; symmetry < SYMMETRIES; symmetry++) {
+            best = Math.min(best, symmetricHashes[symmetry] ^ keys[symmetricCell[symmetry][cell]]);
+        }
+        return best;
+    }
+
+    // A move of this position as a move of the canonical one, and back. -1 stays -1
+    public int toCanonical(int cell, int symmetry) {
+        return cell < 0 ? cell : symmetricCell[symmetry][cell];
+    }
+
+    public int fromCanonical(int cell, int symmetry) {
+        return cell < 0 ? cell : symmetricCell[INVERSE_SYMMETRY[symmetry]][cell];
+    }
+
+    // The position maps onto itself, so moves that the symmetry swaps are equivalent
+    public boolean isSymmetricUnder(int symmetry) {
+        return symmetricHashes[symmetry] == hash;
+    }
+
+    public static int colorIndex(char symbol) {
+        return symbol == 'B' ? 0 : 1;
+    }
+
+    private void placeStone(int x, int y, char symbol) {
+        board[y][x] = symbol;
+        movesLeft--;
+
+        int cell = y * col + x;
+        int color = colorIndex(symbol);
+        long[] colorLines = lines[color];
+        for (int dir = 0; dir < DIRECTIONS; dir++) {
+            colorLines[lineOf[dir][cell]] |= 1L << bitOf[dir][cell];
+            rescoreLine(lineOf[dir][cell]);
+        }
+        if (lanes != null) {
+            for (int dir = 0; dir < DIRECTIONS; dir++) {
+                lanes[dir][laneOf[dir][cell]] = (byte) (color + 1);
+            }
+        }
+        updateHashes(color, cell);
+
+        clearCandidate(x, y);
+        updateNearby(x, y, 1);
+
+        if (useScoreCache) {
+            saveScores(x, y, row * col - movesLeft - 1);
+        }
+    }
+
+    private void removeStone(int x, int y, char symbol) {
+        board[y][x] = EMPTY;
+        movesLeft++;
+
+        int cell = y * col + x;
+        int color = colorIndex(symbol);
+        long[] colorLines = lines[color];
+        for (int dir = 0; dir < DIRECTIONS; dir++) {
+            colorLines[lineOf[dir][cell]] &= ~(1L << bitOf[dir][cell]);
+            rescoreLine(lineOf[dir][cell]);
+        }
+        if (lanes != null) {
+            for (int dir = 0; dir < DIRECTIONS; dir++) {
+                lanes[dir][laneOf[dir][cell]] = LANE_EMPTY;
+            }
+        }
+        updateHashes(color, cell);
+
+        updateNearby(x, y, -1);
+        if (nearbyStones[cell] > 0) {
+            setCandidate(x, y);
+        }
+
+        if (useScoreCache) {
+            restoreScores(cell, row * col - movesLeft);
+        }
+    }
+
+    // Off scores every move from scratch, for comparison. Clears the cache either way
+    public void setScoreCache(boolean useScoreCache) {
+        this.useScoreCache = useScoreCache;
+        clearScores();
+    }
+
+    public boolean usesScoreCache() {
+        return useScoreCache;
+    }
+
+    // Forgets every cached move score, so the next getPossibleMoves scores each move again
+    public void clearScoreCache() {
+        clearScores();
+    }
+
+    // Pushes and clears the scores of the empty cells on the rays through (x, y)
+    private void saveScores(int x, int y, int frame) {
+        frameStart[frame] = savedCount;
+        frameCell[frame] = y * col + x;
+
+        int[] blackScores = moveScores[0];
+        int[] whiteScores = moveScores[1];
+        for (int dir = 0; dir < DIRECTIONS; dir++) {
+            int dx = MovesAnalyzer.arrayWithDeltaValuesToFindHalfAdjacentCells[dir][0];
+            int dy = MovesAnalyzer.arrayWithDeltaValuesToFindHalfAdjacentCells[dir][1];
+            for (int sign = -1; sign <= 1; sign += 2) {
+                int rayX = x;
+                int rayY = y;
+                for (int step = 0; step < SCORE_REACH; step++) {
+                    rayX += sign * dx;
+                    rayY += sign * dy;
+                    if (rayX < 0 || rayX >= col || rayY < 0 || rayY >= row) {
+                        break;
+                    }
+                    int rayCell = rayY * col + rayX;
+                    // NO_SCORE is saved too, the cell may be scored while the stone is on the board
+                    if (board[rayY][rayX] == EMPTY) {
+                        savedCells[savedCount] = rayCell;
+                        savedScores[0][savedCount] = blackScores[rayCell];
+                        savedScores[1][savedCount] = whiteScores[rayCell];
+                        savedCount++;
+                        blackScores[rayCell] = NO_SCORE;
+                        whiteScores[rayCell] = NO_SCORE;
+                    }
+                }
+            }
+        }
+    }
+
+    // Pops the frame of the move at cell. A stone taken back out of order has no frame on top,
+    // then nothing saved can be trusted any more and the whole cache starts over
+    private void restoreScores(int cell, int frame) {
+        if (frameCell[frame] != cell) {
+            clearScores();
+            return;
+        }
+
+        for (int i = savedCount - 1; i >= frameStart[frame]; i--) {
+            moveScores[0][savedCells[i]] = savedScores[0][i];
+            moveScores[1][savedCells[i]] = savedScores[1][i];
+        }
+        savedCount = frameStart[frame];
+        frameCell[frame] = -1;
+    }
+
+    private void clearScores() {
+        Arrays.fill(moveScores[0], NO_SCORE);
+        Arrays.fill(moveScores[1], NO_SCORE);
+        Arrays.fill(frameCell, -1);
+        savedCount = 0;
+    }
+
+    // Adds change to the count of every cell in the square around (x, y). Empty cells whose
+    // count leaves or reaches 0 enter or leave the candidates
+    private void updateNearby(int x, int y, int change) {
+        int fromX = Math.max(0, x - candidateRadius);
+        int toX = Math.min(col - 1, x + candidateRadius);
+        int fromY = Math.max(0, y - candidateRadius);
+        int toY = Math.min(row - 1, y + candidateRadius);
+
+        for (int nearY = fromY; nearY <= toY; nearY++) {
+            int rowStart = nearY * col;
+            for (int nearX = fromX; nearX <= toX; nearX++) {
+                int before = nearbyStones[rowStart + nearX];
+                int after = before + change;
+                nearbyStones[rowStart + nearX] = after;
+                if ((before == 0 || after == 0) && board[nearY][nearX] == EMPTY) {
+                    if (before == 0) {
+                        setCandidate(nearX, nearY);
+                    } else {
+                        clearCandidate(nearX, nearY);
+                    }
+                }
+            }
+        }
+    }
+
+    private void setCandidate(int x, int y) {
+        int bit = x * row + y;
+        candidates[bit >>> 6] |= 1L << bit;
+        candidateCount++;
+    }
+
+    // Cells that are not in the set are left alone
+    private void clearCandidate(int x, int y) {
+        int bit = x * row + y;
+        if ((candidates[bit >>> 6] & (1L << bit)) != 0) {
+            candidates[bit >>> 6] &= ~(1L << bit);
+            candidateCount--;
+        }
+    }
+
+    // Placing and removing a stone flip the same keys
+    private void updateHashes(int color, int cell) {
+        long[] keys = zobristKeys[color];
+        hash ^= keys[cell];
+        for (int symmetry = 0; symmetry < SYMMETRIES; symmetry++) {
+            symmetricHashes[symmetry] ^= keys[symmetricCell[symmetry][cell]];
+        }
+    }
+
+    private void rescoreLine(int line) {
+        long empty = lineMask[line] & ~lines[0][line] & ~lines[1][line];
+
+        for (int color = 0; color < 2; color++) {
+            long stones = lines[color][line];
+            int score = MovesAnalyzer.evaluateLine(stones, empty);
+            scores[color] += score - lineScores[color][line];
+            lineScores[color][line] = score;
+
+            boolean overline = MovesAnalyzer.hasOverline(stones);
+            if (overline != lineOverline[color][line]) {
+                overlines[color] += overline ? 1 : -1;
+                lineOverline[color][line] = overline;
+            }
+        }
+    }
+
+    public void printBoard() {
+        // every column is as wide as the largest coordinate so 15x15 and 19x19 stay aligned
+        int width = String.valueOf(Math.max(row, col)).length();
+        String title = "Board";
+        int underscoreNum = (col * (width + 1) + width + 2 - title.length()) / 2;
+        String header = "\n" + "_".repeat(underscoreNum) + title + "_".repeat(underscoreNum) + "\n";
+
+        String boardDisplay = header;
+        boardDisplay += " ".repeat(width + 3);
+
+        for (int i = 1; i < col + 1; i++) {
+            boardDisplay += String.format("%-" + width + "d ", i);
+        }
+
+        boardDisplay += "\n" + " ".repeat(width + 3) + "_".repeat(col * (width + 1) - 1) + "\n";
+
+        for (int i = 0; i < row; i++) {
+
+            boardDisplay += String.format("%" + width + "d | ", i + 1);
+            for (int j = 0; j < col; j++) {
+                boardDisplay += board[i][j] + " ".repeat(width);
+            }
+
+            boardDisplay += "\n";
+        }
+
+        boardDisplay += "_".repeat(header.length() - 1) + '\n';
+        System.out.println(boardDisplay);
+    }
+
+    public boolean makeMove(int x, int y, char symbol) {
+        x--;
+        y--;
+
+        if (x >= 0 && x < row && y >= 0 && y < col && board[y][x] == EMPTY) {
+            placeStone(x, y, symbol);
+            return true;
+        }
+
+        return false;
+    }
+
+
+    public boolean makeAIMove(int x, int y, char symbol) {
+        if (x >= 0 && x < row && y >= 0 && y < col && board[y][x] == EMPTY) {
+            placeStone(x, y, symbol);
+            return true;
+        }
+
+        return false;
+    }
+
+    public boolean undoAIMove(int x, int y, char symbol) {
+        if (x >= 0 && x < row && y >= 0 && y < col && board[y][x] == symbol) {
+            removeStone(x, y, symbol);
+            return true;
+        }
+
+        return false;
+    }
+}
@@ -0,0 +1,30 @@
+package gomoku;
+
+// An AI that picks moves: Minimax or MonteCarloTreeSearch. The game, the tournament and the
+// server only talk to this interface
+public interface Engine {
+
+    // Returns {x, y} of the move for ai, the board is left as it was
+    int[] findBestMove(Board board, Player ai, Player player);
+
+    // Time budget per move in milliseconds, 0 disables the limit
+    void setMoveTime(long moveTimeMillis);
+
+    // Number of search threads including the calling one
+    void setThreads(int threads);
+
+    int getThreads();
+
+    // Work done by the last findBestMove: search nodes for Minimax, playouts for MCTS
+    long getNodes();
+
+    // Stops any background threads, the engine keeps working single-threaded afterwards
+    void shutdown();
+
+    // Searching on the opponent's time, engines without it ignore these
+    default void startPondering(Board board, Player ai, Player player) {
+    }
+
+    default void stopPondering() {
+    }
+}
@@ -1,3 +1,8 @@
+package gomoku;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.util.Scanner;
 
 public class Game {
@@ -9,6 +14,15 @@ public class Game {
     private String AI_NAME = "AI";
     private Player currentPlayer;
     private Minimax minimax = new Minimax();
+    // The AI of Human vs AI games, minimax unless the Monte Carlo tree search is chosen
+    private Engine engine = minimax;
+    private static final long AI_MOVE_TIME_MILLIS = 3000;
+    // The AI searches ahead on the human's turn
+    private static final boolean PONDERING = true;
+    private static final int[] BOARD_SIZES = {Board.DEFAULT_SIZE, 15, 19};
+    private int boardSize = Board.DEFAULT_SIZE;
+    // Built by OpeningBookBuilder, used when it is in the working directory
+    public static final String OPENING_BOOK_FILE = "opening-book.bin";
     private boolean isGameOver = false;
 
     public void app() {
@@ -18,6 +32,10 @@ public class Game {
         mainMenu();
         mode = validateUserInput(1, 2, "Enter your choice between 1 and 2:");
 
+        clearScreen();
+        boardSizeMenu();
+        boardSize = BOARD_SIZES[validateUserInput(1, BOARD_SIZES.length, "Enter your choice between 1 and " + BOARD_SIZES.length + ":") - 1];
+
         clearScreen();
         if (mode == 1) { // Human vs Human
 
@@ -48,6 +66,9 @@ public class Game {
             printSplitter("-", 35);
             System.out.println("Game mode Human vs AI");
             printSplitter("-", 35);
+            engineMenu();
+            engine = validateUserInput(1, 2, "Enter your choice between 1 and 2:") == 1 ? minimax : new MonteCarloTreeSearch();
+            clearScreen();
             Player player1 = new Player();
             player1.setName(validateUserInput("Enter Player 1 name: "));
             clearScreen();
@@ -71,7 +92,14 @@ public class Game {
 
     public void gameStart(int mode, Player player1, Player player2) {
         clearScreen();
-        board = new Board();
+        board = new Board(boardSize);
+        if (mode == 2) { // only Human vs AI has an engine to set up
+            engine.setMoveTime(AI_MOVE_TIME_MILLIS);
+            minimax.setOpeningBook(loadOpeningBook());
+            if (engine.getThreads() != Runtime.getRuntime().availableProcessors()) {
+                engine.setThreads(Runtime.getRuntime().availableProcessors());
+            }
+        }
         board.printBoard();
         isGameOver = false;
         if (mode == 1) { // Human VS Human
@@ -88,14 +116,19 @@ public class Game {
 
             // Game loop for Human vs AI
             while (board.movesLeft > 0 && !isGameOver) { // check that game is not over
-                if (!currentPlayer.getName().equals(AI_NAME)) { // Player's turn (human)
+                boolean aiTurn = currentPlayer.getName().equals(AI_NAME);
+                if (!aiTurn) { // Player's turn (human)
                     currentPlayer = makeMove(currentPlayer, player1, player2);
                 } else { // AI's turn
                     currentPlayer = makeAIMove(currentPlayer, player1, player2);
                 }
                 clearScreen();
                 board.printBoard();
+                if (aiTurn && SearchMetrics.ENABLED && engine == minimax) {
+                    System.out.println(minimax.getMetrics());
+                }
             }
+            engine.stopPondering();
             renderFinalMessage();
         }
 
@@ -104,7 +137,8 @@ public class Game {
     private Player makeAIMove(Player currentPlayer, Player player1, Player player2) {
         System.out.println("AI's turn (" + currentPlayer.getSymbol() + ")");
 
-        int[] bestMove = minimax.findBestMove(board, currentPlayer, player1);
+        Player opponent = (currentPlayer == player1) ? player2 : player1;
+        int[] bestMove = engine.findBestMove(board, currentPlayer, opponent);
         if (board.makeAIMove(bestMove[0], bestMove[1], currentPlayer.getSymbol())) {
             if (MovesAnalyzer.checkWinningCondition(board, currentPlayer.getSymbol(), bestMove[0], bestMove[1])) {
                 isGameOver = true;
@@ -114,6 +148,10 @@ public class Game {
             return currentPlayer;
         }
 
+        if (PONDERING && board.movesLeft > 0) {
+            engine.startPondering(board, currentPlayer, opponent);
+        }
+
         // change turns
         return (currentPlayer == player1) ? player2 : player1;
     }
@@ -156,6 +194,20 @@ public class Game {
         }
     }
 
+    private OpeningBook loadOpeningBook() {
+        Path path = Path.of(OPENING_BOOK_FILE);
+        if (!Files.exists(path)) {
+            return null;
+        }
+
+        try {
+            return OpeningBook.open(path);
+        } catch (IOException e) {
+            System.out.println("Could not read the opening book: " + e.getMessage());
+            return null;
+        }
+    }
+
     public void mainMenu() {
         printSplitter("-", 35);
         System.out.println("Welcome to the Gomoku game");
@@ -164,6 +216,23 @@ public class Game {
         printSplitter("-", 35);
     }
 
+    public void engineMenu() {
+        printSplitter("-", 35);
+        System.out.println("Choose the AI");
+        System.out.println("1. Minimax");
+        System.out.println("2. Monte Carlo tree search");
+        printSplitter("-", 35);
+    }
+
+    public void boardSizeMenu() {
+        printSplitter("-", 35);
+        System.out.println("Choose the board size");
+        for (int i = 0; i < BOARD_SIZES.length; i++) {
+            System.out.println((i + 1) + ". " + BOARD_SIZES[i] + "x" + BOARD_SIZES[i]);
+        }
+        printSplitter("-", 35);
+    }
+
     private void printSplitter(String symbol, int numRepetition) {
         System.out.println(symbol.repeat(numRepetition));
     }
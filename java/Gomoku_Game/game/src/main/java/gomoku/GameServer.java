@@ -0,0 +1,357 @@
+package gomoku;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+// Headless games against the AI over a line-based protocol on a loopback socket.
+// Usage: java -cp gomoku-game.jar gomoku.GameServer [--port P] [--size S] [--workers W]
+//        [--queue Q] [--max-games G] [--engine CONFIG]
+// where CONFIG is an engine configuration as in Tournament, e.g. depth=4,time=200
+//
+// Client commands, one per line, coordinates are 0-based column and row:
+//   NEW [B|W]        start a game as black (moves first) or white, reply GAME id [x y]
+//                    where x y is the AI's first stone when the client plays white
+//   MOVE id x y      play a stone, the AI answers with MOVE id x y
+//   QUIT id          abandon a game, reply OK id
+//   STATS            server counters and move latency percentiles
+//   BYE              close the connection
+// A finished game is announced with END id WIN|LOSS|DRAW from the client's side, or with
+// END id ERROR when the engine failed on it.
+// BUSY id (or BUSY for NEW) means the engine pool is saturated and the command was not applied,
+// the client should retry later. Errors are reported as ERR [id] message.
+//
+// A connection may run any number of games at once, replies for different games arrive in
+// the order the engines finish them. Every connection has its own thread, the searches run on
+// a bounded pool of engine workers that each own one engine, so no engine state is shared
+// between threads. Only the worker's engine touches a game's board while its move is searched
+public class GameServer {
+
+    private int port = 7777;
+    private int boardSize = Board.DEFAULT_SIZE;
+    private int workers = Runtime.getRuntime().availableProcessors();
+    private int queueCapacity = 64;
+    private int maxGames = 10_000;
+    private Tournament.EngineConfig engineConfig = Tournament.EngineConfig.parse("depth=4,time=200");
+
+    private ServerSocket serverSocket;
+    private ThreadPoolExecutor enginePool;
+    private final ExecutorService connectionPool = Executors.newCachedThreadPool();
+    private ThreadLocal<Engine> engines;
+    private final List<Engine> allEngines = new CopyOnWriteArrayList<>();
+
+    private final Map<Integer, Session> games = new ConcurrentHashMap<>();
+    private final AtomicInteger nextGameId = new AtomicInteger(1);
+
+    private final LatencyHistogram moveLatency = new LatencyHistogram();
+    private final AtomicLong gamesStarted = new AtomicLong();
+    private final AtomicLong gamesFinished = new AtomicLong();
+    private final AtomicLong aiMoves = new AtomicLong();
+    private final AtomicLong busyReplies = new AtomicLong();
+    private long startNanos;
+
+    public static void main(String[] args) throws Exception {
+        GameServer server = new GameServer();
+
+        for (int i = 0; i + 1 < args.length; i += 2) {
+            String value = args[i + 1];
+            switch (args[i]) {
+                case "--port" -> server.port = Integer.parseInt(value);
+                case "--size" -> server.boardSize = Integer.parseInt(value);
+                case "--workers" -> server.workers = Integer.parseInt(value);
+                case "--queue" -> server.queueCapacity = Integer.parseInt(value);
+                case "--max-games" -> server.maxGames = Integer.parseInt(value);
+                case "--engine" -> server.engineConfig = Tournament.EngineConfig.parse(value);
+                default -> {
+                    System.out.println("Unknown option " + args[i]);
+                    return;
+                }
+            }
+        }
+
+        server.start();
+        System.out.println("Listening on " + server.getPort() + ", " + server.workers + " engine workers ("
+                + server.engineConfig + "), queue " + server.queueCapacity);
+        server.serve();
+    }
+
+    public GameServer() {
+    }
+
+    public GameServer(int port, int boardSize, int workers, int queueCapacity, Tournament.EngineConfig engineConfig) {
+        this.port = port;
+        this.boardSize = boardSize;
+        this.workers = workers;
+        this.queueCapacity = queueCapacity;
+        this.engineConfig = engineConfig;
+    }
+
+    // One game on the server, owned by the connection that created it. aiThinking is only
+    // changed while holding the session's lock
+    private static class Session {
+        final int id;
+        final Connection connection;
+        final Board board;
+        final Player human = new Player();
+        final Player ai = new Player();
+        boolean aiThinking;
+
+        Session(int id, Connection connection, int boardSize, char humanSymbol) {
+            this.id = id;
+            this.connection = connection;
+            this.board = new Board(boardSize);
+            human.setName("client");
+            human.setSymbol(humanSymbol);
+            ai.setName("AI");
+            ai.setSymbol(humanSymbol == 'B' ? 'W' : 'B');
+        }
+    }
+
+    // Binds the loopback socket, port 0 picks a free one
+    public void start() throws IOException {
+        Board.checkSize(boardSize);
+        serverSocket = new ServerSocket(port, 128, InetAddress.getLoopbackAddress());
+        port = serverSocket.getLocalPort();
+        // engine workers keep their engine (and its table) for all games they serve
+        engines = ThreadLocal.withInitial(() -> {
+            Engine engine = engineConfig.create();
+            allEngines.add(engine);
+            return engine;
+        });
+        // a full queue rejects the task, which is answered with BUSY
+        enginePool = new ThreadPoolExecutor(workers, workers, 0, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity), new ThreadPoolExecutor.AbortPolicy());
+        startNanos = System.nanoTime();
+    }
+
+    public int getPort() {
+        return port;
+    }
+
+    // Accepts connections until stop() is called
+    public void serve() {
+        while (!serverSocket.isClosed()) {
+            try {
+                Socket socket = serverSocket.accept();
+                connectionPool.submit(() -> new Connection(socket).run());
+            } catch (IOException e) {
+                // the socket was closed by stop()
+            }
+        }
+    }
+
+    public void stop() {
+        try {
+            serverSocket.close();
+        } catch (IOException e) {
+            // closing anyway
+        }
+        connectionPool.shutdownNow();
+        enginePool.shutdownNow();
+        for (Engine engine : allEngines) {
+            engine.shutdown();
+        }
+    }
+
+    public String stats() {
+        double seconds = (System.nanoTime() - startNanos) / 1e9;
+        return String.format("STATS games=%d finished=%d active=%d moves=%d busy=%d p50=%.1fms p99=%.1fms games/sec=%.1f",
+                gamesStarted.get(), gamesFinished.get(), games.size(), aiMoves.get(), busyReplies.get(),
+                moveLatency.percentileMillis(50), moveLatency.percentileMillis(99), gamesFinished.get() / seconds);
+    }
+
+    private class Connection {
+        private final Socket socket;
+        private BufferedWriter writer;
+        private final Set<Integer> ownGames = ConcurrentHashMap.newKeySet();
+
+        Connection(Socket socket) {
+            this.socket = socket;
+        }
+
+        void run() {
+            try (socket;
+                 BufferedReader reader = new BufferedReader(new InputStreamReader(socket.getInputStream(), StandardCharsets.UTF_8))) {
+                writer = new BufferedWriter(new OutputStreamWriter(socket.getOutputStream(), StandardCharsets.UTF_8));
+
+                String line;
+                while ((line = reader.readLine()) != null) {
+                    String[] words = line.trim().split("\\s+");
+                    if (words[0].equals("BYE")) {
+                        break;
+                    }
+                    handle(words);
+                }
+            } catch (IOException e) {
+                // the client went away, its games go with it
+            } finally {
+                for (int id : ownGames) {
+                    games.remove(id);
+                }
+            }
+        }
+
+        // Replies come from this thread and from engine workers
+        synchronized void send(String line) {
+            try {
+                writer.write(line);
+                writer.newLine();
+                writer.flush();
+            } catch (IOException e) {
+                // the reader side notices the broken connection
+            }
+        }
+
+        private void handle(String[] words) {
+            try {
+                switch (words[0]) {
+                    case "NEW" -> newGame(words.length > 1 ? words[1] : "B");
+                    case "MOVE" -> move(Integer.parseInt(words[1]), Integer.parseInt(words[2]), Integer.parseInt(words[3]));
+                    case "QUIT" -> quit(Integer.parseInt(words[1]));
+                    case "STATS" -> send(stats());
+                    default -> send("ERR unknown command " + words[0]);
+                }
+            } catch (NumberFormatException | ArrayIndexOutOfBoundsException e) {
+                send("ERR malformed command");
+            }
+        }
+
+        private void newGame(String color) {
+            if (!color.equals("B") && !color.equals("W")) {
+                send("ERR color must be B or W");
+                return;
+            }
+            if (games.size() >= maxGames) {
+                busyReplies.incrementAndGet();
+                send("BUSY");
+                return;
+            }
+
+            Session session = new Session(nextGameId.getAndIncrement(), this, boardSize, color.charAt(0));
+            games.put(session.id, session);
+            ownGames.add(session.id);
+            gamesStarted.incrementAndGet();
+
+            if (session.ai.getSymbol() == 'B') {
+                // the engine answers the empty board with the center without searching
+                int center = boardSize / 2;
+                session.board.makeAIMove(center, center, 'B');
+                send("GAME " + session.id + " " + center + " " + center);
+            } else {
+                send("GAME " + session.id);
+            }
+        }
+
+        private void move(int id, int x, int y) {
+            Session session = games.get(id);
+            if (session == null || session.connection != this) {
+                send("ERR " + id + " no such game");
+                return;
+            }
+
+            synchronized (session) {
+                if (session.aiThinking) {
+                    send("ERR " + id + " not your turn");
+                    return;
+                }
+                char symbol = session.human.getSymbol();
+                if (!session.board.makeAIMove(x, y, symbol)) {
+                    send("ERR " + id + " illegal move " + x + " " + y);
+                    return;
+                }
+                if (MovesAnalyzer.checkWinningCondition(session.board, symbol, x, y)) {
+                    finish(session, "WIN");
+                    return;
+                }
+                if (session.board.movesLeft == 0) {
+                    finish(session, "DRAW");
+                    return;
+                }
+
+                session.aiThinking = true;
+                long submitted = System.nanoTime();
+                try {
+                    enginePool.execute(() -> aiMove(session, submitted));
+                } catch (RejectedExecutionException e) {
+                    // backpressure: the move is taken back and the client retries it later
+                    session.aiThinking = false;
+                    session.board.undoAIMove(x, y, symbol);
+                    busyReplies.incrementAndGet();
+                    send("BUSY " + id);
+                }
+            }
+        }
+
+        private void quit(int id) {
+            Session session = games.get(id);
+            if (session == null || session.connection != this) {
+                send("ERR " + id + " no such game");
+                return;
+            }
+            games.remove(id);
+            ownGames.remove(id);
+            send("OK " + id);
+        }
+
+        private void finish(Session session, String result) {
+            games.remove(session.id);
+            ownGames.remove(session.id);
+            gamesFinished.incrementAndGet();
+            send("END " + session.id + " " + result);
+        }
+    }
+
+    // Runs on an engine worker, latency counts from the moment the move was queued
+    private void aiMove(Session session, long submitted) {
+        Board board = session.board;
+        int[] move;
+        try {
+            move = engines.get().findBestMove(board, session.ai, session.human);
+        } catch (RuntimeException e) {
+            System.out.println("Engine failed on game " + session.id + ": " + e);
+            synchronized (session) {
+                if (games.get(session.id) == session) {
+                    session.connection.finish(session, "ERROR");
+                }
+                session.aiThinking = false;
+            }
+            return;
+        }
+        moveLatency.record(System.nanoTime() - submitted);
+        aiMoves.incrementAndGet();
+
+        char symbol = session.ai.getSymbol();
+        synchronized (session) {
+            if (games.get(session.id) != session) {
+                return; // abandoned while the engine was searching
+            }
+            board.makeAIMove(move[0], move[1], symbol);
+            session.connection.send("MOVE " + session.id + " " + move[0] + " " + move[1]);
+            if (MovesAnalyzer.checkWinningCondition(board, symbol, move[0], move[1])) {
+                session.connection.finish(session, "LOSS");
+            } else if (board.movesLeft == 0) {
+                session.connection.finish(session, "DRAW");
+            }
+            session.aiThinking = false;
+        }
+    }
+}
@@ -0,0 +1,44 @@
+package gomoku;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+// Latencies counted in fixed buckets of BUCKET_MICROS, so any number of threads can record
+// without locks or allocation. Anything above the last bucket is counted in it
+public class LatencyHistogram {
+
+    private static final long BUCKET_MICROS = 100;
+    private static final int BUCKETS = 100_000; // up to 10 seconds
+
+    private final AtomicLongArray counts = new AtomicLongArray(BUCKETS);
+
+    public void record(long nanos) {
+        int bucket = (int) Math.min(BUCKETS - 1, Math.max(0, nanos / 1000 / BUCKET_MICROS));
+        counts.incrementAndGet(bucket);
+    }
+
+    public long count() {
+        long total = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            total += counts.get(i);
+        }
+        return total;
+    }
+
+    // Upper edge of the bucket holding the given percentile, in milliseconds
+    public double percentileMillis(double percentile) {
+        long total = count();
+        if (total == 0) {
+            return 0;
+        }
+
+        long rank = (long) Math.ceil(total * percentile / 100);
+        long seen = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            seen += counts.get(i);
+            if (seen >= rank) {
+                return (i + 1) * BUCKET_MICROS / 1000.0;
+            }
+        }
+        return BUCKETS * BUCKET_MICROS / 1000.0;
+    }
+}
@@ -1,3 +1,5 @@
+package gomoku;
+
 public class Main {
     public static void main(String[] args) {
 
@@ -0,0 +1,1193 @@
+package gomoku;
+
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+public class Minimax implements Engine {
+
+    private static final int DEFAULT_TABLE_MEGABYTES = 16;
+    // Hashed into the key of nodes where the AI is to move
+    private static final long MAXIMIZER_KEY = 0x5DEECE66DL;
+
+    // A five scores WIN_SCORE minus the ply it was made at, so faster wins and slower
+    // losses are preferred. Any static evaluation stays far below MATE_THRESHOLD
+    public static final int WIN_SCORE = 1_000_000_000;
+    public static final int MATE_THRESHOLD = WIN_SCORE - 1000;
+
+    private TranspositionTable table;
+    public long nodes = 0;
+
+    // Time management: with a game clock the remaining time is split across the moves
+    // we still expect to play, but never more than a fraction of what is left
+    private static final int MOVES_TO_GO = 30;
+    private static final int MAX_CLOCK_FRACTION = 4;
+    // How many nodes are searched between two looks at the clock
+    private static final int CLOCK_CHECK_INTERVAL = 1024;
+
+    private int maxDepth = 6;
+    private long moveTimeMillis = 0;   // 0 means no limit
+    private long clockRemainingMillis = -1;
+    private long clockIncrementMillis = 0;
+
+    private volatile long deadline;
+    private boolean stopped;
+    public int depthReached = 0;
+    // Root score of the last completed iteration, from the AI's side
+    public int bestScore = 0;
+
+    // Lazy SMP: helper searches run the same iterative deepening on their own Board copy
+    // and only share the transposition table, the main thread's result is the one played
+    private int threads = 1;
+    private Minimax[] helpers = new Minimax[0];
+    private ExecutorService helperPool;
+    private volatile boolean abort;
+
+    private long[][] moveBuffers = new long[0][];
+
+    // Move ordering learnt during the search: two killer moves per ply (quiet moves that caused
+    // a cutoff in a sibling) and a history score per [color][cell] that grows with every cutoff.
+    // History breaks ties between equal static scores and is halved before every new search
+    private static final int HISTORY_MAX = 1 << 14;
+    // History is scaled down to this many bits when ordering
+    private static final int HISTORY_BITS = 7;
+    // Moves with a static score from an open two upwards stay ahead of the killers. The static
+    // order is good enough that killers only pay off among quiet moves
+    private static final int TACTICAL_SCORE = 100;
+    private boolean useOrderingHeuristics = true;
+    private int[][] killers = new int[0][];
+    private int[][] history = new int[2][0];
+
+    // Principal variation search: after the first move every move is searched with a null
+    // window around alpha (or beta) and searched again only if it turns out better. The root
+    // starts each iteration with an aspiration window around the previous score
+    public static final int DEFAULT_ASPIRATION_WINDOW = 3000;
+    private static final int ASPIRATION_GROWTH = 4;
+    private boolean usePvs = true;
+    private int aspirationWindow = DEFAULT_ASPIRATION_WINDOW;
+    private int rootCell;
+    public long researches = 0;
+
+    // Rotated and mirrored positions share one table entry: the key is Board.canonicalHash and
+    // the stored move is a move of the canonical position. Root moves that a symmetry of the
+    // board maps onto each other are searched once
+    private boolean useSymmetry = true;
+    public int rootMovesPruned = 0;
+
+    // Cutoffs and how many of them came from the first move searched
+    public long cutoffs = 0;
+    public long firstMoveCutoffs = 0;
+
+    // Leaf evaluations, time in move generation and evaluation, cutoffs by move index and
+    // nodes per iteration. Only filled in when SearchMetrics.ENABLED is set
+    private final SearchMetrics metrics = new SearchMetrics();
+    // Where the last move came from, reported with the JFR event
+    private String moveSource = "search";
+
+    // Pondering: while the opponent thinks, the positions after their most likely replies are
+    // searched one after the other on a background thread that uses this engine's fields.
+    // findBestMove plays a finished result or takes over the running search when the opponent
+    // chose one of them, and cancels pondering otherwise. The shared table keeps the work
+    private static final int PONDER_REPLIES = 6;
+    private ExecutorService ponderPool;
+    private Future<int[]> ponderSearch;
+    private final Map<Long, int[]> ponderResults = new ConcurrentHashMap<>();
+    // hash of the position the opponent actually left, 0 while they are still thinking
+    private volatile long ponderTarget;
+    private volatile long ponderCurrent;
+    public long ponderHits = 0;
+    public long ponderMisses = 0;
+
+    private OpeningBook openingBook;
+    public boolean lastMoveFromBook = false;
+
+    // Forced wins and must-blocks are answered by the threat search without a full search
+    private ThreatSearch threatSearch = new ThreatSearch();
+    private boolean useThreatSearch = true;
+
+    // Late in the game the position is solved exactly instead of searched to a fixed depth:
+    // once this fraction of the board is filled, or when few candidate moves are left after the
+    // first half of that. The openings also have few candidates but are far from solvable
+    public static final double DEFAULT_SOLVER_FULLNESS = 0.7;
+    public static final int DEFAULT_SOLVER_CANDIDATES = 8;
+    private ProofNumberSearch solver;
+    private boolean useSolver = true;
+    private double solverFullness = DEFAULT_SOLVER_FULLNESS;
+    private int solverCandidates = DEFAULT_SOLVER_CANDIDATES;
+
+    // Quiescence: at depth 0 the side to move keeps playing forcing moves until the position is
+    // quiet, so a leaf is never scored with a four on the board. Forcing moves are fives, blocks of
+    // an opponent five and fours, in the first QUIESCENCE_THREE_PLIES plies also open threes and
+    // blocks of the opponent's threes. Unless it has to block, the side to move may stand pat on
+    // the static score. Every leaf gets at most quiescenceNodeLimit nodes and is scored as it
+    // stands once they are used up
+    public static final int DEFAULT_QUIESCENCE_NODE_LIMIT = 64;
+    private static final int QUIESCENCE_THREE_PLIES = 1;
+    private static final int QUIESCENCE_MAX_PLIES = 8;
+    private boolean useQuiescence = true;
+    private int quiescenceNodeLimit = DEFAULT_QUIESCENCE_NODE_LIMIT;
+    private int quiescenceNodesLeft;
+    private int[][] quiescenceBuffers = new int[0][];
+    private int[] quiescenceMarks = new int[0];
+    private int quiescenceMark = 0;
+    public long quiescenceNodes = 0;
+
+    public Minimax() {
+        this(DEFAULT_TABLE_MEGABYTES);
+    }
+
+    public Minimax(int tableMegabytes) {
+        this.table = new TranspositionTable(tableMegabytes);
+    }
+
+    // Positions found in the book are answered without searching, null disables it
+    public void setOpeningBook(OpeningBook openingBook) {
+        this.openingBook = openingBook;
+    }
+
+    public void setThreatSearch(boolean useThreatSearch) {
+        this.useThreatSearch = useThreatSearch;
+    }
+
+    public ThreatSearch getThreatSearch() {
+        return threatSearch;
+    }
+
+    public void setSolver(boolean useSolver) {
+        this.useSolver = useSolver;
+    }
+
+    // The solver runs when at least fullness of the board is filled or at most candidates moves are left
+    public void setSolverThreshold(double fullness, int candidates) {
+        this.solverFullness = fullness;
+        this.solverCandidates = candidates;
+    }
+
+    // Created on first use, so engines that never reach an endgame do not pay for its table
+    public ProofNumberSearch getSolver() {
+        if (solver == null) {
+            solver = new ProofNumberSearch();
+        }
+        return solver;
+    }
+
+    // Off scores depth 0 statically as before, for comparison
+    public void setQuiescence(boolean useQuiescence) {
+        this.useQuiescence = useQuiescence;
+    }
+
+    public void setQuiescenceNodeLimit(int quiescenceNodeLimit) {
+        this.quiescenceNodeLimit = quiescenceNodeLimit;
+    }
+
+    // Killer moves and history, on by default. Off leaves only the hash move and static scores
+    public void setOrderingHeuristics(boolean useOrderingHeuristics) {
+        this.useOrderingHeuristics = useOrderingHeuristics;
+    }
+
+    // Off searches every move with the full window as before, for comparison
+    public void setPrincipalVariationSearch(boolean usePvs) {
+        this.usePvs = usePvs;
+    }
+
+    // Off keys the table by the plain hash and searches every root move, for comparison
+    public void setSymmetry(boolean useSymmetry) {
+        this.useSymmetry = useSymmetry;
+    }
+
+    // Half width of the root window around the previous iteration's score, 0 disables it
+    public void setAspirationWindow(int aspirationWindow) {
+        this.aspirationWindow = aspirationWindow;
+    }
+
+    // Counters of the last findBestMove, helper threads included
+    public SearchMetrics getMetrics() {
+        return metrics;
+    }
+
+    public double firstMoveCutoffRate() {
+        return cutoffs == 0 ? 0 : (double) firstMoveCutoffs / cutoffs;
+    }
+
+    public TranspositionTable getTable() {
+        return table;
+    }
+
+    // Forgets the killer moves and history of every thread, so the next search orders moves as if
+    // it were the first
+    public void clearOrdering() {
+        for (int[] colorHistory : history) {
+            Arrays.fill(colorHistory, 0);
+        }
+        for (int[] plyKillers : killers) {
+            Arrays.fill(plyKillers, -1);
+        }
+        for (Minimax helper : helpers) {
+            helper.clearOrdering();
+        }
+    }
+
+    private Minimax(TranspositionTable table) {
+        this.table = table;
+    }
+
+    // Number of search threads including the calling one
+    @Override
+    public void setThreads(int threads) {
+        if (helperPool != null) {
+            helperPool.shutdownNow();
+            helperPool = null;
+        }
+
+        this.threads = Math.max(1, threads);
+        helpers = new Minimax[this.threads - 1];
+        for (int i = 0; i < helpers.length; i++) {
+            helpers[i] = new Minimax(table);
+        }
+
+        if (helpers.length > 0) {
+            helperPool = Executors.newFixedThreadPool(helpers.length, runnable -> {
+                Thread thread = new Thread(runnable, "minimax-helper");
+                thread.setDaemon(true);
+                return thread;
+            });
+        }
+    }
+
+    // Stops the helper threads and pondering, the engine keeps working single-threaded afterwards
+    @Override
+    public void shutdown() {
+        stopPondering();
+        if (ponderPool != null) {
+            ponderPool.shutdownNow();
+            ponderPool = null;
+        }
+        setThreads(1);
+    }
+
+    // Called after the AI moved: searches the positions after the opponent's likely replies in
+    // the background until findBestMove or stopPondering is called
+    @Override
+    public void startPondering(Board board, Player ai, Player player) {
+        stopPondering();
+
+        int[] replies = likelyReplies(board, player);
+        if (replies.length == 0) {
+            return;
+        }
+
+        if (ponderPool == null) {
+            ponderPool = Executors.newSingleThreadExecutor(runnable -> {
+                Thread thread = new Thread(runnable, "minimax-ponder");
+                thread.setDaemon(true);
+                return thread;
+            });
+        }
+
+        Board ponderBoard = new Board(board);
+        ponderTarget = 0;
+        abort = false;
+        // no time limit until the opponent has moved
+        deadline = Long.MAX_VALUE;
+        ponderSearch = ponderPool.submit(() -> ponder(ponderBoard, replies, ai, player));
+    }
+
+    // Cancels pondering and waits for the background search, its table entries stay
+    @Override
+    public void stopPondering() {
+        if (ponderSearch == null) {
+            return;
+        }
+
+        abort = true;
+        try {
+            ponderSearch.get();
+        } catch (Exception e) {
+            // the search is discarded either way
+        }
+        ponderSearch = null;
+        ponderResults.clear();
+    }
+
+    public boolean isPondering() {
+        return ponderSearch != null;
+    }
+
+    // Runs on the ponder thread: one search per reply, finished ones are kept by position hash.
+    // Returns the move of the search that was running when the opponent played that reply
+    private int[] ponder(Board board, int[] replies, Player ai, Player player) {
+        for (int reply : replies) {
+            if (ponderTarget != 0 || abort) {
+                return null;
+            }
+
+            int x = reply % board.col;
+            int y = reply / board.col;
+            board.makeAIMove(x, y, player.getSymbol());
+            long hash = board.hash;
+            int[] move = null;
+            if (board.movesLeft > 0 && !MovesAnalyzer.checkWinningCondition(board, player.getSymbol(), x, y)) {
+                ponderCurrent = hash;
+                move = search(board, ai, player);
+                ponderCurrent = 0;
+            }
+            board.undoAIMove(x, y, player.getSymbol());
+
+            // The opponent may play this reply after ponderCurrent was cleared, which sets abort.
+            // A search of the target itself is never aborted, so its move is complete
+            if (move != null && ponderTarget == hash) {
+                return move;
+            }
+            if (abort) {
+                return null;
+            }
+            if (move != null) {
+                ponderResults.put(hash, move);
+            }
+        }
+
+        return null;
+    }
+
+    // The reply remembered in the table for the position after the AI's move (nodes with the
+    // player to move are stored without MAXIMIZER_KEY), then the best static moves
+    private int[] likelyReplies(Board board, Player player) {
+        if (board.movesLeft == 0) {
+            return new int[0];
+        }
+
+        long[] moves = movesForPly(0, board);
+        int numMoves = MovesAnalyzer.getPossibleMoves(board, player.getSymbol(), moves);
+        int symmetry = useSymmetry ? board.canonicalSymmetry() : 0;
+        long entry = table.probe(board.symmetricHashes[symmetry]);
+        if (entry != 0) {
+            moveToFront(moves, 0, numMoves, board.fromCanonical(TranspositionTable.move(entry), symmetry));
+        }
+
+        int[] replies = new int[Math.min(PONDER_REPLIES, numMoves)];
+        for (int i = 0; i < replies.length; i++) {
+            replies[i] = MovesAnalyzer.moveCell(moves[i]);
+        }
+        return replies;
+    }
+
+    // A reply that was already searched is played at once. If it is the one being searched,
+    // that search gets the normal time budget from now on, anything else is cancelled and
+    // null is returned
+    private int[] finishPondering(Board board) {
+        long hash = board.hash;
+        long timeLimit = timeForMove(board);
+        if (timeLimit > 0) {
+            deadline = System.currentTimeMillis() + timeLimit;
+        }
+        ponderTarget = hash;
+        if (ponderCurrent != hash) {
+            abort = true;
+        }
+
+        int[] move = null;
+        try {
+            move = ponderSearch.get();
+        } catch (Exception e) {
+            // fall back to the results that are complete
+        }
+        if (move == null) {
+            move = ponderResults.get(hash);
+        }
+        ponderSearch = null;
+        ponderResults.clear();
+
+        if (move != null) {
+            ponderHits++;
+        } else {
+            ponderMisses++;
+        }
+        return move;
+    }
+
+    @Override
+    public int getThreads() {
+        return threads;
+    }
+
+    @Override
+    public long getNodes() {
+        return nodes;
+    }
+
+    public void setMaxDepth(int maxDepth) {
+        this.maxDepth = maxDepth;
+    }
+
+    // Fixed time budget per move in milliseconds, 0 disables the limit
+    @Override
+    public void setMoveTime(long moveTimeMillis) {
+        this.moveTimeMillis = moveTimeMillis;
+    }
+
+    // Time left on the AI's game clock, the budget for the next move is derived from it
+    public void setClock(long remainingMillis, long incrementMillis) {
+        this.clockRemainingMillis = remainingMillis;
+        this.clockIncrementMillis = incrementMillis;
+    }
+
+    private long timeForMove(Board board) {
+        if (clockRemainingMillis < 0) {
+            return moveTimeMillis;
+        }
+
+        int movesToGo = Math.max(1, Math.min(MOVES_TO_GO, (board.movesLeft + 1) / 2));
+        long budget = clockRemainingMillis / movesToGo + clockIncrementMillis;
+        budget = Math.min(budget, clockRemainingMillis / MAX_CLOCK_FRACTION + clockIncrementMillis);
+
+        if (moveTimeMillis > 0) {
+            budget = Math.min(budget, moveTimeMillis);
+        }
+        return Math.max(1, budget);
+    }
+
+    @Override
+    public int[] findBestMove(Board board, Player ai, Player player) {
+        SearchEvent event = new SearchEvent();
+        event.begin();
+        long start = System.nanoTime();
+
+        int[] bestMove = null;
+        if (ponderSearch != null) {
+            bestMove = finishPondering(board);
+            moveSource = "ponder";
+        }
+
+        if (bestMove == null) {
+            abort = false;
+            long timeLimit = timeForMove(board);
+            deadline = timeLimit > 0 ? System.currentTimeMillis() + timeLimit : Long.MAX_VALUE;
+            bestMove = search(board, ai, player);
+        }
+
+        metrics.elapsedNanos = System.nanoTime() - start;
+        metrics.nodes = nodes;
+        metrics.cutoffs = cutoffs;
+        metrics.firstMoveCutoffs = firstMoveCutoffs;
+        metrics.researches = researches;
+        metrics.quiescenceNodes = quiescenceNodes;
+        metrics.depthReached = depthReached;
+
+        event.end();
+        if (event.shouldCommit()) {
+            event.boardSize = board.col;
+            event.source = moveSource;
+            event.depth = depthReached;
+            event.nodes = nodes;
+            event.leafEvaluations = metrics.leafEvaluations;
+            event.cutoffs = cutoffs;
+            event.firstMoveCutoffs = firstMoveCutoffs;
+            event.moveGenerationTime = metrics.moveGenerationNanos;
+            event.evaluationTime = metrics.evaluationNanos;
+            event.move = bestMove[1] * board.col + bestMove[0];
+            event.score = bestScore;
+            event.commit();
+        }
+        return bestMove;
+    }
+
+    // The search behind findBestMove, deadline and abort are set by the caller so a ponder
+    // search can be given a deadline while it is already running
+    private int[] search(Board board, Player ai, Player player) {
+
+        int bestX, bestY;
+        bestX = bestY = -1;
+        int final_depth = Math.min(board.movesLeft - 1, maxDepth);
+        nodes = 0;
+        cutoffs = 0;
+        firstMoveCutoffs = 0;
+        researches = 0;
+        quiescenceNodes = 0;
+        depthReached = 0;
+        bestScore = 0;
+        metrics.reset();
+        moveSource = "search";
+
+        lastMoveFromBook = false;
+        if (openingBook != null && openingBook.getBoardSize() == board.col) {
+            // the book stores moves of the canonical position
+            int cell = board.fromCanonical(openingBook.lookup(board.canonicalHash()), board.canonicalSymmetry());
+            if (cell >= 0 && board.board[cell / board.col][cell % board.col] == board.EMPTY) {
+                lastMoveFromBook = true;
+                moveSource = "book";
+                return new int[]{cell % board.col, cell / board.col};
+            }
+        }
+
+        if (board.movesLeft == board.col * board.row
+                || (board.movesLeft == board.col * board.row - 1
+                && board.makeAIMove(board.col / 2, board.row / 2, ai.getSymbol()))) {
+            bestX = (board.col / 2);
+            bestY = (board.row / 2);
+            board.undoAIMove(bestX, bestY, ai.getSymbol());
+            return new int[]{bestX, bestY};
+        }
+
+        if (useThreatSearch) {
+            int cell = threatSearch.findForcedMove(board, ai.getSymbol());
+            if (cell >= 0) {
+                moveSource = "threat";
+                return new int[]{cell % board.col, cell / board.col};
+            }
+        }
+
+        // a proven win or draw is played as it is, a proven loss is left to the search so it
+        // picks the move that resists longest
+        if (useSolver && solverApplies(board, ai)) {
+            // at most half of the move's time, the search needs the rest when nothing is proven
+            long now = System.currentTimeMillis();
+            getSolver().setDeadline(deadline == Long.MAX_VALUE ? deadline : now + (deadline - now) / 2);
+            int cell = solver.solve(board, ai.getSymbol());
+            if (cell >= 0) {
+                moveSource = "solver";
+                bestScore = solver.lastResult == ProofNumberSearch.WIN ? WIN_SCORE : 0;
+                return new int[]{cell % board.col, cell / board.col};
+            }
+        }
+
+        stopped = false;
+        newOrdering(board);
+        table.newSearch();
+
+        Future<?>[] helperSearches = new Future<?>[helpers.length];
+        for (int i = 0; i < helpers.length; i++) {
+            Minimax helper = helpers[i];
+            Board helperBoard = new Board(board);
+            // odd helpers run one ply ahead so the threads do not all search the same tree
+            int helperStart = 1 + (i % 2);
+            int helperDepth = Math.min(final_depth + 1, board.movesLeft - 1);
+            helper.nodes = 0;
+            helper.cutoffs = 0;
+            helper.firstMoveCutoffs = 0;
+            helper.useOrderingHeuristics = useOrderingHeuristics;
+            helper.usePvs = usePvs;
+            helper.useSymmetry = useSymmetry;
+            helper.aspirationWindow = aspirationWindow;
+            helper.researches = 0;
+            helper.quiescenceNodes = 0;
+            helper.useQuiescence = useQuiescence;
+            helper.quiescenceNodeLimit = quiescenceNodeLimit;
+            helper.metrics.reset();
+            helper.newOrdering(helperBoard);
+            helper.stopped = false;
+            helper.abort = false;
+            helper.deadline = deadline;
+            helperSearches[i] = helperPool.submit(() ->
+                    helper.iterativeDeepening(helperBoard, ai, player, helperStart, helperDepth));
+        }
+
+        int[] bestMove = iterativeDeepening(board, ai, player, 1, final_depth);
+
+        for (int i = 0; i < helpers.length; i++) {
+            helpers[i].abort = true;
+        }
+        for (int i = 0; i < helpers.length; i++) {
+            try {
+                helperSearches[i].get();
+            } catch (Exception e) {
+                // a failed helper only costs speed, the main search result stands
+            }
+            nodes += helpers[i].nodes;
+            cutoffs += helpers[i].cutoffs;
+            firstMoveCutoffs += helpers[i].firstMoveCutoffs;
+            researches += helpers[i].researches;
+            quiescenceNodes += helpers[i].quiescenceNodes;
+            metrics.add(helpers[i].metrics);
+        }
+
+        return bestMove;
+    }
+
+    private boolean solverApplies(Board board, Player ai) {
+        int cells = board.col * board.row;
+        int filled = cells - board.movesLeft;
+        if (filled >= solverFullness * cells) {
+            return true;
+        }
+        return filled >= solverFullness * cells / 2
+                && MovesAnalyzer.getPossibleMoves(board, ai.getSymbol(), movesForPly(0, board)) <= solverCandidates;
+    }
+
+    private int[] iterativeDeepening(Board board, Player ai, Player player, int startDepth, int finalDepth) {
+        long scoreCacheHits = board.scoreCacheHits;
+        long scoreCacheMisses = board.scoreCacheMisses;
+        long[] possibleMoves = movesForPly(0, board);
+        int numMoves = generateMoves(board, ai.getSymbol(), possibleMoves);
+        if (numMoves == 0) {
+            throw new IllegalStateException("No move to search, the board is full");
+        }
+        rootMovesPruned = 0;
+        if (useSymmetry) {
+            int allMoves = numMoves;
+            numMoves = MovesAnalyzer.removeSymmetricMoves(board, possibleMoves, numMoves);
+            rootMovesPruned = allMoves - numMoves;
+        }
+        // best static move in case not even the first iteration completes
+        int bestCell = MovesAnalyzer.moveCell(possibleMoves[0]);
+        int previousScore = 0;
+
+        // iterative deepening: every completed depth orders the next one
+        for (int depth = startDepth; depth <= finalDepth; depth++) {
+            // aspiration window around the previous depth's score, widened until the score is inside
+            int window = aspirationWindow;
+            boolean aspiration = usePvs && window > 0 && depth > startDepth && Math.abs(previousScore) < MATE_THRESHOLD;
+            int lower = aspiration ? previousScore - window : Integer.MIN_VALUE;
+            long iterationStart = nodes;
+            int upper = aspiration ? previousScore + window : Integer.MAX_VALUE;
+            int value;
+
+            // the root order stays the same through re-searches, so equal scores resolve to the
+            // same move as a full-window search would pick
+            moveToFront(possibleMoves, 0, numMoves, bestCell);
+            while (true) {
+                value = searchRoot(board, depth, lower, upper, ai, player, possibleMoves, numMoves);
+
+                if (stopped) {
+                    break;
+                }
+
+                // a mate outside the window opens that side completely
+                if (value <= lower && lower != Integer.MIN_VALUE) {
+                    window = widen(window);
+                    lower = window < MATE_THRESHOLD && value > -MATE_THRESHOLD ? previousScore - window : Integer.MIN_VALUE;
+                } else if (value >= upper && upper != Integer.MAX_VALUE) {
+                    window = widen(window);
+                    upper = window < MATE_THRESHOLD && value < MATE_THRESHOLD ? previousScore + window : Integer.MAX_VALUE;
+                } else {
+                    break;
+                }
+                researches++;
+            }
+
+            // an interrupted iteration is discarded, the previous depth's move stands
+            if (stopped) {
+                break;
+            }
+
+            bestCell = rootCell;
+            bestScore = value;
+            previousScore = value;
+            depthReached = depth;
+            metrics.recordIteration(depth, nodes - iterationStart);
+        }
+
+        metrics.scoreCacheHits += board.scoreCacheHits - scoreCacheHits;
+        metrics.scoreCacheMisses += board.scoreCacheMisses - scoreCacheMisses;
+        return new int[]{bestCell % board.col, bestCell / board.col};
+    }
+
+    // Grows the aspiration window, saturating at MATE_THRESHOLD (which opens that side) before
+    // the int multiply could wrap
+    private static int widen(int window) {
+        return window >= MATE_THRESHOLD / ASPIRATION_GROWTH ? MATE_THRESHOLD : window * ASPIRATION_GROWTH;
+    }
+
+    // Searches the root moves inside (lower, upper) and returns the best score, its move is left
+    // in rootCell. With PVS the alpha of the first move carries over to the others, which are
+    // searched with a null window and only searched again when they beat it
+    private int searchRoot(Board board, int depth, int lower, int upper, Player ai, Player player, long[] possibleMoves, int numMoves) {
+        int value = Integer.MIN_VALUE;
+        int alpha = lower;
+        rootCell = MovesAnalyzer.moveCell(possibleMoves[0]);
+
+        for (int i = 0; i < numMoves; i++) {
+            int cell = MovesAnalyzer.moveCell(possibleMoves[i]);
+            int x = cell % board.col;
+            int y = cell / board.col;
+
+            board.makeAIMove(x, y, ai.getSymbol());
+            int score;
+            if (!usePvs) {
+                score = minimax(board, depth, 1, Integer.MIN_VALUE, Integer.MAX_VALUE, false, ai, player, cell);
+            } else if (i == 0) {
+                score = minimax(board, depth, 1, alpha, upper, false, ai, player, cell);
+            } else {
+                score = minimax(board, depth, 1, alpha, alpha + 1, false, ai, player, cell);
+                if (score > alpha && score < upper && !stopped) {
+                    researches++;
+                    score = minimax(board, depth, 1, alpha, upper, false, ai, player, cell);
+                }
+            }
+            board.undoAIMove(x, y, ai.getSymbol());
+
+            if (stopped) {
+                break;
+            }
+
+            if (score > value) {
+                value = score;
+                rootCell = cell;
+            }
+            if (usePvs) {
+                alpha = Math.max(alpha, value);
+                if (alpha >= upper) {
+                    break;
+                }
+            }
+        }
+
+        return value;
+    }
+
+    // Move lists are written into one preallocated buffer per ply, so steady-state search
+    // does not allocate. Buffers only grow when a deeper ply or a larger board shows up
+    private long[] movesForPly(int ply, Board board) {
+        if (ply >= moveBuffers.length) {
+            moveBuffers = Arrays.copyOf(moveBuffers, ply + 1);
+        }
+
+        int cells = board.col * board.row;
+        if (moveBuffers[ply] == null || moveBuffers[ply].length < cells) {
+            moveBuffers[ply] = new long[cells];
+        }
+
+        return moveBuffers[ply];
+    }
+
+
+    // lastMove is the cell just played, the only one that can have completed a five
+    public int minimax(Board board, int depth, int ply, int alpha, int beta, boolean maximizer, Player ai, Player player, int lastMove) {
+        nodes++;
+
+        if ((nodes % CLOCK_CHECK_INTERVAL) == 0 && (abort || System.currentTimeMillis() >= deadline)) {
+            stopped = true;
+        }
+        if (stopped) {
+            return 0;
+        }
+
+        // base case, always scored from the AI's side since odd depths end on the player's move
+        char lastSymbol = maximizer ? player.getSymbol() : ai.getSymbol();
+        if (MovesAnalyzer.checkWinningCondition(board, lastSymbol, lastMove % board.col, lastMove / board.col)) {
+            return maximizer ? -(WIN_SCORE - ply) : WIN_SCORE - ply;
+        }
+        if (depth == 0) {
+            if (useQuiescence) {
+                quiescenceNodesLeft = quiescenceNodeLimit;
+                return quiesce(board, 0, ply, alpha, beta, maximizer, ai, player);
+            }
+            return evaluate(board, ai.getSymbol());
+        }
+
+        int symmetry = useSymmetry ? board.canonicalSymmetry() : 0;
+        long key = maximizer ? board.symmetricHashes[symmetry] ^ MAXIMIZER_KEY : board.symmetricHashes[symmetry];
+        long entry = table.probe(key);
+        int hashMove = -1;
+        int alphaOrig = alpha;
+        int betaOrig = beta;
+
+        if (entry != 0) {
+            hashMove = board.fromCanonical(TranspositionTable.move(entry), symmetry);
+
+            if (TranspositionTable.depth(entry) >= depth) {
+                int score = scoreFromTable(TranspositionTable.score(entry), ply);
+                int bound = TranspositionTable.bound(entry);
+
+                if (bound == TranspositionTable.EXACT) return score;
+                if (bound == TranspositionTable.LOWER_BOUND) alpha = Math.max(alpha, score);
+                if (bound == TranspositionTable.UPPER_BOUND) beta = Math.min(beta, score);
+                if (beta <= alpha) return score;
+            }
+        }
+
+        // maximizer true
+        int value;
+        int bestMove = -1;
+        long[] possibleMoves = movesForPly(ply, board);
+        int numMoves;
+        if (maximizer) {
+            value = Integer.MIN_VALUE;
+            numMoves = generateMoves(board, ai.getSymbol(), possibleMoves);
+            // a full board, scored as it stands instead of storing Integer.MIN_VALUE
+            if (numMoves == 0) {
+                return evaluate(board, ai.getSymbol());
+            }
+            orderMoves(possibleMoves, numMoves, Board.colorIndex(ai.getSymbol()), ply, hashMove);
+
+            for (int i = 0; i < numMoves; i++) {
+
+                int cell = MovesAnalyzer.moveCell(possibleMoves[i]);
+                int x = cell % board.col;
+                int y = cell / board.col;
+
+                board.makeAIMove(x, y, ai.getSymbol());
+                int temp;
+                if (i == 0 || !usePvs) {
+                    temp = minimax(board, depth - 1, ply + 1, alpha, beta, false, ai, player, cell);
+                } else {
+                    // null window: only proves the move is no better than alpha
+                    temp = minimax(board, depth - 1, ply + 1, alpha, alpha + 1, false, ai, player, cell);
+                    if (temp > alpha && temp < beta && !stopped) {
+                        researches++;
+                        temp = minimax(board, depth - 1, ply + 1, alpha, beta, false, ai, player, cell);
+                    }
+                }
+                board.undoAIMove(x, y, ai.getSymbol());
+
+                if (stopped) return 0;
+
+                if (temp > value) {
+                    value = temp;
+                    bestMove = cell;
+                }
+                alpha = Math.max(alpha, value);
+
+                if (beta <= alpha) {
+                    recordCutoff(Board.colorIndex(ai.getSymbol()), ply, depth, cell, i);
+                    break;
+                }
+            }
+
+        }
+        // maximizer false
+        else {
+            value = Integer.MAX_VALUE;
+            numMoves = generateMoves(board, player.getSymbol(), possibleMoves);
+            if (numMoves == 0) {
+                return evaluate(board, ai.getSymbol());
+            }
+            orderMoves(possibleMoves, numMoves, Board.colorIndex(player.getSymbol()), ply, hashMove);
+
+            for (int i = 0; i < numMoves; i++) {
+
+                int cell = MovesAnalyzer.moveCell(possibleMoves[i]);
+                int x = cell % board.col;
+                int y = cell / board.col;
+
+                board.makeAIMove(x, y, player.getSymbol());
+                int temp;
+                if (i == 0 || !usePvs) {
+                    temp = minimax(board, depth - 1, ply + 1, alpha, beta, true, ai, player, cell);
+                } else {
+                    temp = minimax(board, depth - 1, ply + 1, beta - 1, beta, true, ai, player, cell);
+                    if (temp < beta && temp > alpha && !stopped) {
+                        researches++;
+                        temp = minimax(board, depth - 1, ply + 1, alpha, beta, true, ai, player, cell);
+                    }
+                }
+                board.undoAIMove(x, y, player.getSymbol());
+
+                if (stopped) return 0;
+
+                if (temp < value) {
+                    value = temp;
+                    bestMove = cell;
+                }
+                beta = Math.min(beta, value);
+
+                if (beta <= alpha) {
+                    recordCutoff(Board.colorIndex(player.getSymbol()), ply, depth, cell, i);
+                    break;
+                }
+            }
+        }
+
+        int bound;
+        if (value <= alphaOrig) {
+            bound = TranspositionTable.UPPER_BOUND;
+        } else if (value >= betaOrig) {
+            bound = TranspositionTable.LOWER_BOUND;
+        } else {
+            bound = TranspositionTable.EXACT;
+        }
+        table.store(key, depth, scoreToTable(value, ply), bound, board.toCanonical(bestMove, symmetry));
+
+        return value;
+
+    }
+
+    // Alpha-beta over the forcing moves of the side to move, scored from the AI's side like minimax.
+    // The last move made no five, minimax checked it. Forcing moves are found line by line with
+    // ThreatSearch.lineThreats, lines with too few stones for a threat are skipped
+    private int quiesce(Board board, int qply, int ply, int alpha, int beta, boolean maximizer, Player ai, Player player) {
+        char symbol = maximizer ? ai.getSymbol() : player.getSymbol();
+        int color = Board.colorIndex(symbol);
+        long[] own = board.lines[color];
+        long[] opponent = board.lines[1 - color];
+        int lineCount = board.lineMask.length;
+
+        for (int line = 0; line < lineCount; line++) {
+            if (Long.bitCount(own[line]) >= 4
+                    && ThreatSearch.lineThreats(board, color, line, MovesAnalyzer.THREAT_FIVE) != 0) {
+                return maximizer ? WIN_SCORE - (ply + 1) : -(WIN_SCORE - (ply + 1));
+            }
+        }
+
+        int[] cells = quiescenceCellsForPly(qply, board);
+        int count = 0;
+        int fives = 0;
+        int block = -1;
+        newQuiescenceMarks(board);
+
+        for (int line = 0; line < lineCount; line++) {
+            if (Long.bitCount(opponent[line]) >= 4) {
+                long threats = ThreatSearch.lineThreats(board, 1 - color, line, MovesAnalyzer.THREAT_FIVE);
+                for (; threats != 0; threats &= threats - 1) {
+                    int cell = board.cellAt[line][Long.numberOfTrailingZeros(threats)];
+                    if (quiescenceMarks[cell] != quiescenceMark) {
+                        quiescenceMarks[cell] = quiescenceMark;
+                        fives++;
+                        block = cell;
+                    }
+                }
+            }
+        }
+
+        // two fives cannot both be blocked
+        if (fives > 1) {
+            return maximizer ? -(WIN_SCORE - (ply + 2)) : WIN_SCORE - (ply + 2);
+        }
+
+        int value;
+        if (fives == 1) {
+            if (quiescenceNodesLeft <= 0 || qply >= QUIESCENCE_MAX_PLIES) {
+                return evaluate(board, ai.getSymbol());
+            }
+            cells[0] = block;
+            count = 1;
+            value = maximizer ? Integer.MIN_VALUE : Integer.MAX_VALUE;
+        } else {
+            // stand pat
+            value = evaluate(board, ai.getSymbol());
+            if (quiescenceNodesLeft <= 0 || qply >= QUIESCENCE_MAX_PLIES) {
+                return value;
+            }
+            if (maximizer) {
+                if (value >= beta) return value;
+                alpha = Math.max(alpha, value);
+            } else {
+                if (value <= alpha) return value;
+                beta = Math.min(beta, value);
+            }
+
+            // fours first, then threes and the cells where the opponent would make a four
+            count = addLineThreats(board, color, 3, MovesAnalyzer.THREAT_FOUR, cells, count);
+            if (qply < QUIESCENCE_THREE_PLIES) {
+                count = addLineThreats(board, color, 2, MovesAnalyzer.THREAT_OPEN_THREE, cells, count);
+                count = addLineThreats(board, 1 - color, 3, MovesAnalyzer.THREAT_FOUR, cells, count);
+            }
+        }
+
+        for (int i = 0; i < count && quiescenceNodesLeft > 0; i++) {
+            quiescenceNodesLeft--;
+            quiescenceNodes++;
+            nodes++;
+            if ((nodes % CLOCK_CHECK_INTERVAL) == 0 && (abort || System.currentTimeMillis() >= deadline)) {
+                stopped = true;
+                return 0;
+            }
+
+            int x = cells[i] % board.col;
+            int y = cells[i] / board.col;
+            board.makeAIMove(x, y, symbol);
+            int score = quiesce(board, qply + 1, ply + 1, alpha, beta, !maximizer, ai, player);
+            board.undoAIMove(x, y, symbol);
+
+            if (stopped) return 0;
+
+            if (maximizer) {
+                value = Math.max(value, score);
+                alpha = Math.max(alpha, value);
+            } else {
+                value = Math.min(value, score);
+                beta = Math.min(beta, value);
+            }
+            if (beta <= alpha) {
+                break;
+            }
+        }
+
+        return value;
+    }
+
+    // Appends the cells where color makes the threat on a line with at least minStones of its
+    // stones, skipping cells already in the list
+    private int addLineThreats(Board board, int color, int minStones, int threat, int[] cells, int count) {
+        long[] stones = board.lines[color];
+
+        for (int line = 0; line < stones.length; line++) {
+            if (Long.bitCount(stones[line]) < minStones) {
+                continue;
+            }
+
+            long threats = ThreatSearch.lineThreats(board, color, line, threat);
+            for (; threats != 0; threats &= threats - 1) {
+                int cell = board.cellAt[line][Long.numberOfTrailingZeros(threats)];
+                if (quiescenceMarks[cell] != quiescenceMark) {
+                    quiescenceMarks[cell] = quiescenceMark;
+                    cells[count++] = cell;
+                }
+            }
+        }
+
+        return count;
+    }
+
+    // Cells marked with the current mark are in the list being built, a new mark empties it
+    private void newQuiescenceMarks(Board board) {
+        int cells = board.col * board.row;
+        if (quiescenceMarks.length != cells || ++quiescenceMark == 0) {
+            quiescenceMarks = new int[cells];
+            quiescenceMark = 1;
+        }
+    }
+
+    // One cell list per quiescence ply, like movesForPly
+    private int[] quiescenceCellsForPly(int qply, Board board) {
+        if (qply >= quiescenceBuffers.length) {
+            quiescenceBuffers = Arrays.copyOf(quiescenceBuffers, qply + 1);
+        }
+
+        int cells = board.col * board.row;
+        if (quiescenceBuffers[qply] == null || quiescenceBuffers[qply].length < cells) {
+            quiescenceBuffers[qply] = new int[cells];
+        }
+
+        return quiescenceBuffers[qply];
+    }
+
+    // getPossibleMoves and evaluateBoardState as the search calls them, timed when metrics are on
+    private int generateMoves(Board board, char symbol, long[] possibleMoves) {
+        if (!SearchMetrics.ENABLED) {
+            return MovesAnalyzer.getPossibleMoves(board, symbol, possibleMoves);
+        }
+
+        long start = System.nanoTime();
+        int numMoves = MovesAnalyzer.getPossibleMoves(board, symbol, possibleMoves);
+        metrics.moveGenerationNanos += System.nanoTime() - start;
+        metrics.moveGenerations++;
+        return numMoves;
+    }
+
+    private int evaluate(Board board, char symbol) {
+        if (!SearchMetrics.ENABLED) {
+            return MovesAnalyzer.evaluateBoardState(board, symbol);
+        }
+
+        long start = System.nanoTime();
+        int score = MovesAnalyzer.evaluateBoardState(board, symbol);
+        metrics.evaluationNanos += System.nanoTime() - start;
+        metrics.leafEvaluations++;
+        return score;
+    }
+
+    // Clears the killers and halves the history, so older searches count less than this one
+    private void newOrdering(Board board) {
+        int cells = board.col * board.row;
+        if (history[0].length != cells) {
+            history = new int[2][cells];
+        }
+
+        for (int color = 0; color < 2; color++) {
+            for (int cell = 0; cell < cells; cell++) {
+                history[color][cell] >>= 1;
+            }
+        }
+        for (int[] plyKillers : killers) {
+            Arrays.fill(plyKillers, -1);
+        }
+    }
+
+    private void recordCutoff(int color, int ply, int depth, int cell, int moveIndex) {
+        cutoffs++;
+        if (moveIndex == 0) {
+            firstMoveCutoffs++;
+        }
+        if (SearchMetrics.ENABLED) {
+            metrics.recordCutoff(moveIndex);
+        }
+
+        if (!useOrderingHeuristics) {
+            return;
+        }
+
+        int[] plyKillers = killersForPly(ply);
+        if (plyKillers[0] != cell) {
+            plyKillers[1] = plyKillers[0];
+            plyKillers[0] = cell;
+        }
+
+        history[color][cell] += depth * depth;
+        if (history[color][cell] > HISTORY_MAX) {
+            for (int i = 0; i < history[color].length; i++) {
+                history[color][i] >>= 1;
+            }
+        }
+    }
+
+    private int[] killersForPly(int ply) {
+        if (ply >= killers.length) {
+            int oldLength = killers.length;
+            killers = Arrays.copyOf(killers, ply + 1);
+            for (int i = oldLength; i < killers.length; i++) {
+                killers[i] = new int[]{-1, -1};
+            }
+        }
+
+        return killers[ply];
+    }
+
+    // Order: hash move, tactical moves by static score, the killers of this ply, then the rest
+    // by static score with history as the tie-break (below TACTICAL_SCORE the shift cannot overflow)
+    private void orderMoves(long[] possibleMoves, int numMoves, int color, int ply, int hashMove) {
+        if (useOrderingHeuristics) {
+            int tactical = 0;
+            while (tactical < numMoves && MovesAnalyzer.moveScore(possibleMoves[tactical]) >= TACTICAL_SCORE) {
+                tactical++;
+            }
+
+            int[] colorHistory = history[color];
+            for (int i = tactical; i < numMoves; i++) {
+                int cell = MovesAnalyzer.moveCell(possibleMoves[i]);
+                possibleMoves[i] = MovesAnalyzer.packMove(cell, (MovesAnalyzer.moveScore(possibleMoves[i]) << HISTORY_BITS)
+                        | Math.min((1 << HISTORY_BITS) - 1, colorHistory[cell] * (1 << HISTORY_BITS) / HISTORY_MAX));
+            }
+            MovesAnalyzer.sortPossibleMovesUsingInsertionSort(possibleMoves, tactical, numMoves);
+
+            int[] plyKillers = killersForPly(ply);
+            moveToFront(possibleMoves, tactical, numMoves, plyKillers[1]);
+            moveToFront(possibleMoves, tactical, numMoves, plyKillers[0]);
+        }
+
+        moveToFront(possibleMoves, 0, numMoves, hashMove);
+    }
+
+    // Mate scores are stored relative to the node so they stay valid when the same
+    // position is reached at a different ply
+    private static int scoreToTable(int score, int ply) {
+        if (score > MATE_THRESHOLD) return score + ply;
+        if (score < -MATE_THRESHOLD) return score - ply;
+        return score;
+    }
+
+    private static int scoreFromTable(int score, int ply) {
+        if (score > MATE_THRESHOLD) return score - ply;
+        if (score < -MATE_THRESHOLD) return score + ply;
+        return score;
+    }
+
+    // Moves cell to index from if it is among the moves from there on, keeping the others in order
+    private static void moveToFront(long[] possibleMoves, int from, int numMoves, int cell) {
+        if (cell < 0) {
+            return;
+        }
+
+        for (int i = from; i < numMoves; i++) {
+            if (MovesAnalyzer.moveCell(possibleMoves[i]) == cell) {
+                long move = possibleMoves[i];
+                System.arraycopy(possibleMoves, from, possibleMoves, from + 1, i - from);
+                possibleMoves[from] = move;
+                return;
+            }
+        }
+    }
+
+}
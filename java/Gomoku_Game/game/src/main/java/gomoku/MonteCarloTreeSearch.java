@@ -0,0 +1,412 @@
+package gomoku;
+
+import java.util.Arrays;
+import java.util.SplittableRandom;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+// Monte Carlo tree search with UCT. Every playout walks down the tree by the UCT formula,
+// expands the leaf into its best candidate moves, plays the game out to the end and adds
+// the result to every node on the way. The most visited root move is played.
+// Rollouts either play uniformly random empty cells or one of the best static moves by
+// evaluateMove, always taking a five and blocking the opponent's.
+// Threads search root-parallel: each one grows its own tree on its own Board copy, the root
+// visit counts are added up at the end, so no tree is shared and nothing is locked.
+// Trees live in preallocated node pools, a playout does not allocate
+public class MonteCarloTreeSearch implements Engine {
+
+    public static final int RANDOM_ROLLOUT = 0;
+    public static final int GUIDED_ROLLOUT = 1;
+
+    public static final long DEFAULT_MOVE_TIME_MILLIS = 1000;
+    // Nodes per tree, about 25 bytes each. A full pool stops growing the tree, playouts go on
+    public static final int DEFAULT_POOL_NODES = 1 << 18;
+
+    // UCT exploration constant, results count 1 for a win and 0.5 for a draw
+    private static final double EXPLORATION = 1.0;
+    // A leaf is expanded from its second visit on, the root at once
+    private static final int EXPANSION_VISITS = 2;
+    // Children of a node: its best candidate moves by static score
+    private static final int MAX_CHILDREN = 20;
+    // Guided rollouts pick one of this many best static moves
+    private static final int ROLLOUT_CHOICES = 3;
+    // Longer rollouts count as a draw
+    private static final int ROLLOUT_LIMIT = 100;
+    // Playouts between two looks at the clock
+    private static final int CLOCK_CHECK_INTERVAL = 64;
+
+    private int rollout = GUIDED_ROLLOUT;
+    private long moveTimeMillis = DEFAULT_MOVE_TIME_MILLIS;
+    private long playoutLimit = 0;
+    private int poolNodes;
+
+    private int threads = 1;
+    private Worker[] workers = new Worker[0];
+    private ExecutorService workerPool;
+
+    public long playouts = 0;
+    // Visits of the played move over all root visits, how sure the search was
+    public double confidence = 0;
+
+    private int[] rootVisits = new int[0];
+
+    public MonteCarloTreeSearch() {
+        this(DEFAULT_POOL_NODES);
+    }
+
+    public MonteCarloTreeSearch(int poolNodes) {
+        this.poolNodes = poolNodes;
+        setThreads(1);
+    }
+
+    public void setRollout(int rollout) {
+        this.rollout = rollout;
+    }
+
+    @Override
+    public void setMoveTime(long moveTimeMillis) {
+        this.moveTimeMillis = moveTimeMillis;
+    }
+
+    // Playouts per move over all threads, 0 leaves only the time limit. With both at 0
+    // DEFAULT_MOVE_TIME_MILLIS applies
+    public void setPlayouts(long playoutLimit) {
+        this.playoutLimit = playoutLimit;
+    }
+
+    @Override
+    public void setThreads(int threads) {
+        if (workerPool != null) {
+            workerPool.shutdownNow();
+            workerPool = null;
+        }
+
+        this.threads = Math.max(1, threads);
+        workers = new Worker[this.threads];
+        for (int i = 0; i < workers.length; i++) {
+            workers[i] = new Worker(i + 1);
+        }
+
+        if (this.threads > 1) {
+            workerPool = Executors.newFixedThreadPool(this.threads - 1, runnable -> {
+                Thread thread = new Thread(runnable, "mcts-worker");
+                thread.setDaemon(true);
+                return thread;
+            });
+        }
+    }
+
+    @Override
+    public int getThreads() {
+        return threads;
+    }
+
+    @Override
+    public long getNodes() {
+        return playouts;
+    }
+
+    @Override
+    public void shutdown() {
+        setThreads(1);
+    }
+
+    @Override
+    public int[] findBestMove(Board board, Player ai, Player player) {
+        long timeLimit = moveTimeMillis > 0 || playoutLimit > 0 ? moveTimeMillis : DEFAULT_MOVE_TIME_MILLIS;
+        long deadline = timeLimit > 0 ? System.currentTimeMillis() + timeLimit : Long.MAX_VALUE;
+        long workerPlayouts = playoutLimit > 0 ? Math.max(1, playoutLimit / threads) : 0;
+        char toMove = ai.getSymbol();
+
+        Future<?>[] searches = new Future<?>[threads - 1];
+        for (int i = 1; i < threads; i++) {
+            Worker worker = workers[i];
+            Board workerBoard = new Board(board);
+            searches[i - 1] = workerPool.submit(() -> worker.search(workerBoard, toMove, deadline, workerPlayouts));
+        }
+        workers[0].search(new Board(board), toMove, deadline, workerPlayouts);
+
+        for (Future<?> search : searches) {
+            try {
+                search.get();
+            } catch (Exception e) {
+                // a failed worker only costs playouts, the others' counts stand
+            }
+        }
+
+        // root-parallel: the move with the most visits over all trees
+        int cells = board.col * board.row;
+        if (rootVisits.length != cells) {
+            rootVisits = new int[cells];
+        }
+        Arrays.fill(rootVisits, 0);
+        playouts = 0;
+        long total = 0;
+        for (Worker worker : workers) {
+            playouts += worker.playouts;
+            for (int child = worker.firstChild[0]; child < worker.firstChild[0] + worker.childCount[0]; child++) {
+                rootVisits[worker.cell[child]] += worker.visits[child];
+                total += worker.visits[child];
+            }
+        }
+
+        int best = -1;
+        for (int cell = 0; cell < cells; cell++) {
+            if (rootVisits[cell] > 0 && (best < 0 || rootVisits[cell] > rootVisits[best])) {
+                best = cell;
+            }
+        }
+        if (best < 0) {
+            // not a single playout finished, fall back to the best static move
+            long[] moves = new long[cells];
+            MovesAnalyzer.getPossibleMoves(board, toMove, moves);
+            best = MovesAnalyzer.moveCell(moves[0]);
+        }
+        confidence = total == 0 ? 0 : (double) rootVisits[best] / total;
+
+        return new int[]{best % board.col, best / board.col};
+    }
+
+    // One search thread with its own tree. Node i holds the move that leads to it, the visits
+    // and the score of the side that played that move in half points (2 win, 1 draw). The
+    // children of a node are contiguous in the pool
+    private class Worker {
+        private int[] cell = new int[0];
+        private int[] firstChild = new int[0];
+        private int[] childCount = new int[0];
+        private int[] visits = new int[0];
+        private int[] score = new int[0];
+        // the move made a five, the node is a won end of the game
+        private boolean[] terminal = new boolean[0];
+        private int size;
+
+        private final SplittableRandom random;
+        private Board board;
+        private char rootSymbol;
+        private int[] path = new int[0];
+        private int[] played = new int[0];
+        private int numPlayed;
+        private long[] moveBuffer = new long[0];
+        private long playouts;
+
+        Worker(long seed) {
+            random = new SplittableRandom(seed);
+        }
+
+        void search(Board board, char toMove, long deadline, long playoutLimit) {
+            this.board = board;
+            this.rootSymbol = toMove;
+            allocate(board.col * board.row);
+
+            size = 1;
+            cell[0] = -1;
+            childCount[0] = 0;
+            visits[0] = 0;
+            score[0] = 0;
+            terminal[0] = false;
+            playouts = 0;
+
+            while (true) {
+                playout();
+                playouts++;
+                if (playoutLimit > 0 && playouts >= playoutLimit) {
+                    break;
+                }
+                if (playouts % CLOCK_CHECK_INTERVAL == 0 && System.currentTimeMillis() >= deadline) {
+                    break;
+                }
+            }
+        }
+
+        private void allocate(int cells) {
+            if (cell.length != poolNodes) {
+                cell = new int[poolNodes];
+                firstChild = new int[poolNodes];
+                childCount = new int[poolNodes];
+                visits = new int[poolNodes];
+                score = new int[poolNodes];
+                terminal = new boolean[poolNodes];
+            }
+            if (played.length < cells + 1) {
+                path = new int[cells + 2];
+                played = new int[cells + 1];
+                moveBuffer = new long[cells];
+            }
+        }
+
+        // Selection, expansion, rollout and backpropagation of one game. The moves are taken
+        // back afterwards, so the board is the root position again
+        private void playout() {
+            int node = 0;
+            int depth = 0;
+            numPlayed = 0;
+            char symbol = rootSymbol;
+            int winner = -1; // color index, -1 for a draw
+            path[depth++] = 0;
+
+            while (childCount[node] > 0) {
+                node = select(node);
+                play(cell[node], symbol);
+                path[depth++] = node;
+                if (terminal[node]) {
+                    winner = Board.colorIndex(symbol);
+                    break;
+                }
+                symbol = other(symbol);
+            }
+
+            if (winner < 0 && board.movesLeft > 0) {
+                if ((node == 0 || visits[node] >= EXPANSION_VISITS) && size + MAX_CHILDREN <= poolNodes
+                        && expand(node, symbol) > 0) {
+                    node = firstChild[node];
+                    play(cell[node], symbol);
+                    path[depth++] = node;
+                    if (terminal[node]) {
+                        winner = Board.colorIndex(symbol);
+                    }
+                    symbol = other(symbol);
+                }
+                if (winner < 0) {
+                    winner = rollout(symbol);
+                }
+            }
+
+            // path[i] was reached by a move of the root side when i is odd
+            int rootColor = Board.colorIndex(rootSymbol);
+            for (int i = 0; i < depth; i++) {
+                int n = path[i];
+                visits[n]++;
+                int mover = i % 2 == 1 ? rootColor : 1 - rootColor;
+                score[n] += winner < 0 ? 1 : winner == mover ? 2 : 0;
+            }
+
+            for (int i = numPlayed - 1; i >= 0; i--) {
+                int move = played[i];
+                board.undoAIMove(move % board.col, move / board.col, i % 2 == 0 ? rootSymbol : other(rootSymbol));
+            }
+        }
+
+        // A won child is always taken, unvisited children go first in static order, then UCT
+        private int select(int node) {
+            int first = firstChild[node];
+            int end = first + childCount[node];
+            double logVisits = Math.log(visits[node]);
+            int best = first;
+            double bestValue = Double.NEGATIVE_INFINITY;
+
+            for (int child = first; child < end; child++) {
+                if (terminal[child] || visits[child] == 0) {
+                    return child;
+                }
+                double value = score[child] / (2.0 * visits[child]) + EXPLORATION * Math.sqrt(logVisits / visits[child]);
+                if (value > bestValue) {
+                    bestValue = value;
+                    best = child;
+                }
+            }
+            return best;
+        }
+
+        // Children are the best candidate moves of symbol. A five is the only child, and so is
+        // the block when the opponent threatens one. Returns the number of children
+        private int expand(int node, char symbol) {
+            int numMoves = MovesAnalyzer.getPossibleMoves(board, symbol, moveBuffer);
+            int forced = forcedMove(symbol, numMoves);
+            int first = size;
+
+            if (forced >= 0) {
+                addChild(forced, symbol);
+            } else {
+                for (int i = 0; i < Math.min(MAX_CHILDREN, numMoves); i++) {
+                    addChild(MovesAnalyzer.moveCell(moveBuffer[i]), symbol);
+                }
+            }
+            firstChild[node] = first;
+            childCount[node] = size - first;
+            return childCount[node];
+        }
+
+        private void addChild(int move, char symbol) {
+            cell[size] = move;
+            childCount[size] = 0;
+            visits[size] = 0;
+            score[size] = 0;
+            terminal[size] = MovesAnalyzer.checkWinningCondition(board, symbol, move % board.col, move / board.col);
+            size++;
+        }
+
+        // Own five first, then a block of the opponent's five, among the first moves of moveBuffer
+        private int forcedMove(char symbol, int numMoves) {
+            int block = -1;
+            for (int i = 0; i < numMoves; i++) {
+                int move = MovesAnalyzer.moveCell(moveBuffer[i]);
+                int x = move % board.col;
+                int y = move / board.col;
+                if (MovesAnalyzer.checkWinningCondition(board, symbol, x, y)) {
+                    return move;
+                }
+                if (block < 0 && MovesAnalyzer.checkWinningCondition(board, other(symbol), x, y)) {
+                    block = move;
+                }
+            }
+            return block;
+        }
+
+        // Plays the game out from symbol's move and returns the winner's color index, -1 for a draw
+        private int rollout(char symbol) {
+            for (int step = 0; step < ROLLOUT_LIMIT && board.movesLeft > 0; step++) {
+                int move = rollout == GUIDED_ROLLOUT ? guidedMove(symbol) : randomMove();
+                // the five is checked before the stone is placed, as in the rest of the engine
+                boolean five = MovesAnalyzer.checkWinningCondition(board, symbol, move % board.col, move / board.col);
+                play(move, symbol);
+                if (five) {
+                    return Board.colorIndex(symbol);
+                }
+                symbol = other(symbol);
+            }
+            return -1;
+        }
+
+        private int guidedMove(char symbol) {
+            int numMoves = MovesAnalyzer.getPossibleMoves(board, symbol, moveBuffer);
+            if (numMoves == 0) {
+                return randomMove();
+            }
+            int choices = Math.min(ROLLOUT_CHOICES, numMoves);
+            int forced = forcedMove(symbol, choices);
+            if (forced >= 0) {
+                return forced;
+            }
+            return MovesAnalyzer.moveCell(moveBuffer[random.nextInt(choices)]);
+        }
+
+        // A few random probes, then a scan for the n-th empty cell when the board is nearly full
+        private int randomMove() {
+            int cells = board.col * board.row;
+            for (int probe = 0; probe < 8; probe++) {
+                int move = random.nextInt(cells);
+                if (board.board[move / board.col][move % board.col] == board.EMPTY) {
+                    return move;
+                }
+            }
+
+            int skip = random.nextInt(board.movesLeft);
+            for (int move = 0; move < cells; move++) {
+                if (board.board[move / board.col][move % board.col] == board.EMPTY && skip-- == 0) {
+                    return move;
+                }
+            }
+            return -1;
+        }
+
+        private void play(int move, char symbol) {
+            board.makeAIMove(move % board.col, move / board.col, symbol);
+            played[numPlayed++] = move;
+        }
+    }
+
+    private static char other(char symbol) {
+        return symbol == 'B' ? 'W' : 'B';
+    }
+}
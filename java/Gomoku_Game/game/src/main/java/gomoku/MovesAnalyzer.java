@@ -0,0 +1,559 @@
+package gomoku;
+
+public class MovesAnalyzer {
+    public static int[][] offenseValueMove = {
+            {2, 1, 1, 50},
+            {2, 2, 0, 100},
+            {3, 1, 1, 500},
+            {3, 2, 0, 2000},
+            {4, 1, 1, 10000},
+            {4, 2, 0, 100000},
+            {5, 0, 2, 1000000},
+            {5, 1, 1, 1000000},
+            {5, 2, 0, 1000000}
+    };
+
+    public static int[][] defenseValueMove = {
+            {1, 2, 5},
+            {1, 1, 10},
+            {2, 2, 60},
+            {2, 1, 120},
+            {3, 2, 500},
+            {3, 1, 2500},
+            {4, 2, 500000},
+            {4, 1, 500000}
+    };
+
+    public static int[][] weights = {
+            {0, 0, 0}, // 1x0, 1x1, 1x2
+            {1, 2, 3}, // 2x0, 2x1, 2x2
+            {5, 10, 15}, // 3x0, 3x1, 3x2
+            {20, 50, 100}, // 4x0, 4x1, 4x2
+            {5000, 5000, 5000}  // 5x0, 5x1, 5x2
+    };
+
+    public static int[][] arrayWithDeltaValuesToFindHalfAdjacentCells = {
+            {-1, -1},
+            {0, -1},
+            {1, -1},
+            {1, 0}
+    };
+
+    // The full board evaluation runs on VectorEvaluation when the JVM was started with
+    // --add-modules jdk.incubator.vector, otherwise on the scalar scan. -Dgomoku.scalar=true
+    // keeps the scalar scan either way
+    public static final boolean VECTOR_EVALUATION = ModuleLayer.boot().findModule("jdk.incubator.vector").isPresent()
+            && !Boolean.getBoolean("gomoku.scalar");
+
+    // Threat classes a move can create on one line, ordered by strength
+    public static final int THREAT_NONE = 0;
+    public static final int THREAT_OPEN_THREE = 1;
+    public static final int THREAT_FOUR = 2;
+    public static final int THREAT_OPEN_FOUR = 3;
+    public static final int THREAT_FIVE = 4;
+
+    // Lookup tables built once from the value tables above, so move scoring needs no recursion.
+    // One side of a move on a line is the SIDE_CELLS cells next to it, given as three bitmasks
+    // (own, opponent, blocked). SIDE_PATTERN maps them to a pattern code: the own run length,
+    // whether it ends on an empty cell, and the same for the opponent. MOVE_SCORE and
+    // MOVE_THREAT combine the codes of both sides. Five cells are enough since longer runs
+    // never match a row of the value tables
+    private static final int SIDE_CELLS = 5;
+    private static final int SIDE_MASK = (1 << SIDE_CELLS) - 1;
+    private static final int[] REVERSED = new int[1 << SIDE_CELLS];
+    private static final int[] SIDE_PATTERN = new int[1 << (3 * SIDE_CELLS)];
+    private static final int[][] MOVE_SCORE = new int[1 << 8][1 << 8];
+    private static final int[][] MOVE_THREAT = new int[1 << 8][1 << 8];
+    // Position score of a run by [chain length][open edges], see evaluateLine
+    private static final int[][] RUN_SCORE = new int[6][3];
+
+    static {
+        buildPatternTables();
+    }
+
+    private static void buildPatternTables() {
+        for (int bits = 0; bits <= SIDE_MASK; bits++) {
+            for (int i = 0; i < SIDE_CELLS; i++) {
+                if ((bits & (1 << i)) != 0) {
+                    REVERSED[bits] |= 1 << (SIDE_CELLS - 1 - i);
+                }
+            }
+        }
+
+        for (int index = 0; index < SIDE_PATTERN.length; index++) {
+            int own = index & SIDE_MASK;
+            int opponent = (index >> SIDE_CELLS) & SIDE_MASK;
+            int blocked = (index >> (2 * SIDE_CELLS)) & SIDE_MASK;
+            int empty = ~(own | opponent | blocked) & SIDE_MASK;
+
+            int ownRun = Integer.numberOfTrailingZeros(~own);
+            int ownOpen = ownRun < SIDE_CELLS ? (empty >> ownRun) & 1 : 0;
+            int opponentRun = Integer.numberOfTrailingZeros(~opponent);
+            int opponentOpen = opponentRun < SIDE_CELLS ? (empty >> opponentRun) & 1 : 0;
+
+            SIDE_PATTERN[index] = ownRun | ownOpen << 3 | opponentRun << 4 | opponentOpen << 7;
+        }
+
+        for (int after = 0; after < MOVE_SCORE.length; after++) {
+            for (int before = 0; before < MOVE_SCORE.length; before++) {
+                int chainLength = 1 + (after & 7) + (before & 7);
+                int openEdges = ((after >> 3) & 1) + ((before >> 3) & 1);
+
+                int value = offenseValue(chainLength, openEdges);
+                value += defenseValue((after >> 4) & 7, 2 - ((after >> 7) & 1));
+                value += defenseValue((before >> 4) & 7, 2 - ((before >> 7) & 1));
+                MOVE_SCORE[after][before] = value;
+
+                int threat = THREAT_NONE;
+                if (chainLength == 5) {
+                    threat = THREAT_FIVE;
+                } else if (chainLength == 4) {
+                    threat = openEdges == 2 ? THREAT_OPEN_FOUR : (openEdges == 1 ? THREAT_FOUR : THREAT_NONE);
+                } else if (chainLength == 3 && openEdges == 2) {
+                    threat = THREAT_OPEN_THREE;
+                }
+                MOVE_THREAT[after][before] = threat;
+            }
+        }
+
+        for (int chainLength = 1; chainLength <= 5; chainLength++) {
+            for (int openEdges = 0; openEdges <= 2; openEdges++) {
+                RUN_SCORE[chainLength][openEdges] = chainLength * weights[chainLength - 1][openEdges] * chainLength * (openEdges + 1);
+            }
+        }
+    }
+
+    private static int offenseValue(int chainLength, int openEdges) {
+        for (int j = 0; j < offenseValueMove.length; j++) {
+            if (chainLength == offenseValueMove[j][0] && openEdges == offenseValueMove[j][1] &&
+                    2 - openEdges == offenseValueMove[j][2]) {
+                return offenseValueMove[j][3];
+            }
+        }
+
+        return 0;
+    }
+
+    private static int defenseValue(int chainLength, int closedEdges) {
+        for (int j = 0; j < defenseValueMove.length; j++) {
+            if (chainLength == defenseValueMove[j][0] && closedEdges == defenseValueMove[j][1]) {
+                return defenseValueMove[j][2];
+            }
+        }
+
+        return 0;
+    }
+
+    private static boolean moveIsWithinBorders(Board boardObject, int x, int y) {
+        if (x < boardObject.row && x >= 0 && y < boardObject.col && y >= 0) {
+            return true;
+        }
+
+        return false;
+    }
+
+    // Moves are packed into a long: score in the upper 32 bits, cell (y * col + x) in the lower
+    public static long packMove(int cell, int score) {
+        return ((long) score << 32) | cell;
+    }
+
+    public static int moveCell(long move) {
+        return (int) move;
+    }
+
+    public static int moveScore(long move) {
+        return (int) (move >>> 32);
+    }
+
+    // Writes the scored moves into the caller's buffer (at least movesLeft long) and returns
+    // how many there are. Only moves with a positive score are kept unless there are none.
+    // Only the board's candidate cells near a stone are scored, cells further away always score 0,
+    // so the cost follows the number of stones rather than the board area
+    public static int getPossibleMoves(Board boardObject, char symbol, long[] moves) {
+
+        if (boardObject.movesLeft == boardObject.col * boardObject.row) {
+            return getAllMoves(boardObject, symbol, moves);
+        }
+
+        int numItems = 0;
+        long[] candidates = boardObject.candidates;
+        for (int word = 0; word < candidates.length; word++) {
+            for (long bits = candidates[word]; bits != 0; bits &= bits - 1) {
+                int bit = (word << 6) + Long.numberOfTrailingZeros(bits);
+                int x = bit / boardObject.row;
+                int y = bit % boardObject.row;
+                int score = cachedMoveScore(boardObject, symbol, x, y);
+
+                moves[numItems] = packMove(y * boardObject.col + x, score);
+                numItems++;
+            }
+        }
+
+        // sort based on values
+        sortPossibleMovesUsingInsertionSort(moves, numItems);
+
+        return countPositiveMoves(moves, numItems);
+    }
+
+    // evaluateMove through the board's score cache, see Board.moveScores
+    private static int cachedMoveScore(Board boardObject, char symbol, int x, int y) {
+        if (!boardObject.usesScoreCache()) {
+            return evaluateMove(boardObject, symbol, x, y);
+        }
+
+        int[] scores = boardObject.moveScores[Board.colorIndex(symbol)];
+        int cell = y * boardObject.col + x;
+        int score = scores[cell];
+        if (score == Board.NO_SCORE) {
+            score = evaluateMove(boardObject, symbol, x, y);
+            scores[cell] = score;
+            boardObject.scoreCacheMisses++;
+        } else {
+            boardObject.scoreCacheHits++;
+        }
+        return score;
+    }
+
+    // The empty board has no candidates yet, every cell is scored
+    private static int getAllMoves(Board boardObject, char symbol, long[] moves) {
+        int numItems = 0;
+        for (int x = 0; x < boardObject.col; x++) {
+            for (int y = 0; y < boardObject.row; y++) {
+                moves[numItems++] = packMove(y * boardObject.col + x, cachedMoveScore(boardObject, symbol, x, y));
+            }
+        }
+
+        sortPossibleMovesUsingInsertionSort(moves, numItems);
+        return countPositiveMoves(moves, numItems);
+    }
+
+    // After sorting the positive moves form a prefix, they replace the full list if there are any
+    public static int countPositiveMoves(long[] moves, int numItems) {
+        int positive = 0;
+        while (positive < numItems && moveScore(moves[positive]) > 0) {
+            positive++;
+        }
+
+        return positive != 0 ? positive : numItems;
+    }
+
+    // Drops every move that a symmetry of the position maps onto an earlier kept move, both lead
+    // to the same position up to rotation or mirroring. Keeps the order, returns the new count
+    public static int removeSymmetricMoves(Board boardObject, long[] moves, int numItems) {
+        int symmetries = 0; // one bit per symmetry the position maps onto itself
+        for (int symmetry = 1; symmetry < Board.SYMMETRIES; symmetry++) {
+            if (boardObject.isSymmetricUnder(symmetry)) {
+                symmetries |= 1 << symmetry;
+            }
+        }
+        if (symmetries == 0) {
+            return numItems;
+        }
+
+        int kept = 0;
+        for (int i = 0; i < numItems; i++) {
+            if (!hasSymmetricTwin(boardObject, moves, kept, moveCell(moves[i]), symmetries)) {
+                moves[kept++] = moves[i];
+            }
+        }
+
+        return kept;
+    }
+
+    private static boolean hasSymmetricTwin(Board boardObject, long[] moves, int kept, int cell, int symmetries) {
+        for (int symmetry = 1; symmetry < Board.SYMMETRIES; symmetry++) {
+            if ((symmetries & (1 << symmetry)) == 0) {
+                continue;
+            }
+            int image = boardObject.symmetricCell[symmetry][cell];
+            for (int i = 0; i < kept && image != cell; i++) {
+                if (moveCell(moves[i]) == image) {
+                    return true;
+                }
+            }
+        }
+
+        return false;
+    }
+
+    // Stable, so equal scores keep the generation order
+    public static void sortPossibleMovesUsingInsertionSort(long[] moves, int numItems) {
+        sortPossibleMovesUsingInsertionSort(moves, 0, numItems);
+    }
+
+    // Sorts moves[from] .. moves[to - 1] only
+    public static void sortPossibleMovesUsingInsertionSort(long[] moves, int from, int to) {
+        for (int start = from + 1; start < to; start++) {
+            long temp = moves[start];
+            int prev = start - 1;
+
+            while (prev >= from && moveScore(moves[prev]) < moveScore(temp)) {
+                moves[prev + 1] = moves[prev];
+                prev--;
+            }
+
+            moves[prev + 1] = temp;
+        }
+    }
+
+    public static boolean checkWinningCondition(Board boardObject, char symbol, int x, int y) {
+        int cell = y * boardObject.col + x;
+        long[] lines = boardObject.lines[Board.colorIndex(symbol)];
+
+        for (int dir = 0; dir < Board.DIRECTIONS; dir++) {
+            int bit = boardObject.bitOf[dir][cell];
+            // the move itself counts towards the chain even if it is not placed yet
+            long stones = lines[boardObject.lineOf[dir][cell]] | (1L << bit);
+
+            // a five that starts anywhere in [bit - 4, bit] goes through (x, y)
+            if ((exactFiveStarts(stones) & ((0x1FL << bit) >>> 4)) != 0) {
+                return true;
+            }
+        }
+
+        return false;
+    }
+
+    // Bits where a run of exactly five stones starts (overlines do not count)
+    public static long exactFiveStarts(long stones) {
+        return stones & (stones >>> 1) & (stones >>> 2) & (stones >>> 3) & (stones >>> 4)
+                & ~(stones >>> 5) & ~(stones << 1);
+    }
+
+
+    public static boolean isAnyoneWin(Board boardObject) {
+        for (int color = 0; color < 2; color++) {
+            long[] lines = boardObject.lines[color];
+            for (int i = 0; i < lines.length; i++) {
+                if (exactFiveStarts(lines[i]) != 0) return true;
+            }
+        }
+        return false;
+
+    }
+
+    private static int evaluateMove(Board boardObject, char symbol, int x, int y) {
+        int totalValue = 0;
+        int cell = y * boardObject.col + x;
+        int color = Board.colorIndex(symbol);
+
+        for (int dir = 0; dir < Board.DIRECTIONS; dir++) {
+            int line = boardObject.lineOf[dir][cell];
+            int bit = boardObject.bitOf[dir][cell];
+            long own = boardObject.lines[color][line];
+            long opponent = boardObject.lines[1 - color][line];
+            long blocked = ~boardObject.lineMask[line];
+
+            totalValue += MOVE_SCORE[sideAfter(own, opponent, blocked, bit)][sideBefore(own, opponent, blocked, bit)];
+        }
+
+        return totalValue;
+    }
+
+    // Offense threat the move creates for symbol: the best THREAT_* class over its four lines
+    public static int evaluateThreat(Board boardObject, char symbol, int x, int y) {
+        int threat = THREAT_NONE;
+        int cell = y * boardObject.col + x;
+        int color = Board.colorIndex(symbol);
+
+        for (int dir = 0; dir < Board.DIRECTIONS; dir++) {
+            int line = boardObject.lineOf[dir][cell];
+            int bit = boardObject.bitOf[dir][cell];
+            long own = boardObject.lines[color][line];
+            long opponent = boardObject.lines[1 - color][line];
+            long blocked = ~boardObject.lineMask[line];
+
+            threat = Math.max(threat, MOVE_THREAT[sideAfter(own, opponent, blocked, bit)][sideBefore(own, opponent, blocked, bit)]);
+        }
+
+        return threat;
+    }
+
+    // Pattern of the SIDE_CELLS cells after bit on a line, nearest cell in the lowest bit
+    private static int sideAfter(long own, long opponent, long blocked, int bit) {
+        int shift = bit + 1;
+        return SIDE_PATTERN[(int) ((own >>> shift) & SIDE_MASK)
+                | (int) ((opponent >>> shift) & SIDE_MASK) << SIDE_CELLS
+                | (int) ((blocked >>> shift) & SIDE_MASK) << (2 * SIDE_CELLS)];
+    }
+
+    // Same for the cells before bit, cells off the start of the line count as blocked
+    private static int sideBefore(long own, long opponent, long blocked, int bit) {
+        int shift = bit;
+        long blockedBefore = blocked << SIDE_CELLS | SIDE_MASK;
+        return SIDE_PATTERN[REVERSED[(int) (((own << SIDE_CELLS) >>> shift) & SIDE_MASK)]
+                | REVERSED[(int) (((opponent << SIDE_CELLS) >>> shift) & SIDE_MASK)] << SIDE_CELLS
+                | REVERSED[(int) ((blockedBefore >>> shift) & SIDE_MASK)] << (2 * SIDE_CELLS)];
+    }
+
+    // Returns chain length * 2 + open edge, packed so the hot path does not allocate
+    private static int countChainLengthAndEdgeStatusForBoard(Board boardObject, char symbol, int x, int y, int dx, int dy, int chainLength) {
+
+        if (moveIsWithinBorders(boardObject, x + dx, y + dy)) {
+
+
+            if (boardObject.board[y + dy][x + dx] == boardObject.EMPTY) {
+                return chainLength * 2 + 1;
+            }
+
+            if (boardObject.board[y + dy][x + dx] == symbol) {
+
+                return countChainLengthAndEdgeStatusForBoard(boardObject, symbol, x + dx, y + dy, dx, dy, chainLength + 1);
+            }
+
+            // if (boardObject.board[y + dy][x + dx] == opponent's symbol)
+            return chainLength * 2;
+        }
+
+        return chainLength * 2;
+
+    }
+
+    public static int evaluateBoardState(Board boardObject, char symbol) {
+        char opponentSymbol = symbol == 'B' ? 'W' : 'B';
+
+        // the per-line scores kept by Board drop the stone skipping that overlines cause below
+        if (boardObject.overlines[0] + boardObject.overlines[1] > 0) {
+            return (int) (evaluateSymbolFully(boardObject, symbol) - evaluateSymbolFully(boardObject, opponentSymbol) * 1.5);
+        }
+
+        int own = boardObject.scores[Board.colorIndex(symbol)];
+        int opponent = boardObject.scores[Board.colorIndex(opponentSymbol)];
+        return (int) (own - opponent * 1.5);
+    }
+
+    // Same formula as evaluateSymbolBoardState restricted to one line: every stone of a run
+    // of length L with E open ends adds weights[L - 1][E] * L * (E + 1)
+    public static int evaluateLine(long stones, long empty) {
+        int totalValue = 0;
+
+        while (stones != 0) {
+            int start = Long.numberOfTrailingZeros(stones);
+            int chainLength = Long.numberOfTrailingZeros(~(stones >>> start));
+            stones &= ~(((1L << chainLength) - 1) << start);
+
+            if (chainLength > 5) {
+                continue;
+            }
+
+            int openEdges = (int) ((empty >>> (start + chainLength)) & 1);
+            if (start > 0) {
+                openEdges += (int) ((empty >>> (start - 1)) & 1);
+            }
+
+            totalValue += RUN_SCORE[chainLength][openEdges];
+        }
+
+        return totalValue;
+    }
+
+    public static boolean hasOverline(long stones) {
+        return (stones & (stones >>> 1) & (stones >>> 2) & (stones >>> 3) & (stones >>> 4) & (stones >>> 5)) != 0;
+    }
+
+    // Every stone of symbol scored from scratch, on the vector path when VECTOR_EVALUATION is set
+    public static int evaluateSymbolFully(Board boardObject, char symbol) {
+        if (VECTOR_EVALUATION) {
+            return VectorEvaluation.evaluateSymbol(boardObject, symbol);
+        }
+        return evaluateSymbolBoardState(boardObject, symbol);
+    }
+
+    // Formula: sum(WI)
+    public static int evaluateSymbolBoardState(Board boardObject, char symbol) {
+        int totalValue = 0;
+
+
+
+        for (int x = 0; x < boardObject.col; x++) {
+            for (int y = 0; y < boardObject.row; y++) {
+                if (moveIsWithinBorders(boardObject, x, y) && boardObject.board[y][x] == symbol) {
+                    for (int i = 0; i < arrayWithDeltaValuesToFindHalfAdjacentCells.length; i++) {
+                        int dx = arrayWithDeltaValuesToFindHalfAdjacentCells[i][0];
+                        int dy = arrayWithDeltaValuesToFindHalfAdjacentCells[i][1];
+
+
+                        int chainLength = 1;
+                        int openEdges = 0;
+
+                        int resultHalf1 = countChainLengthAndEdgeStatusForBoard(boardObject, symbol, x, y, dx, dy, 0);
+                        // Opposite direction
+                        int resultHalf2 = countChainLengthAndEdgeStatusForBoard(boardObject, symbol, x, y, dx * -1, dy * -1, 0);
+
+                        chainLength += (resultHalf1 >> 1) + (resultHalf2 >> 1);
+                        openEdges = (resultHalf1 & 1) + (resultHalf2 & 1);
+
+                        if (chainLength > 5) {
+                            break;
+                        }
+
+                        // Formula
+                        totalValue += weights[chainLength - 1][openEdges] * chainLength * (openEdges + 1);
+
+                    }
+                }
+            }
+        }
+
+        return totalValue;
+    }
+
+    // What evaluateSymbolBoardState leaves out because a stone in a run longer than five skips its
+    // remaining directions, for evaluations that score every direction of every stone. Only the
+    // stones of overlines are looked at, each from the first direction where it is in one
+    public static int skippedByOverlines(Board boardObject, char symbol) {
+        int color = Board.colorIndex(symbol);
+        long[] stones = boardObject.lines[color];
+        long[] opponentStones = boardObject.lines[1 - color];
+        int skipped = 0;
+
+        for (int line = 0; line < stones.length; line++) {
+            if (!boardObject.lineOverline[color][line]) {
+                continue;
+            }
+
+            for (long over = overlineStones(stones[line]); over != 0; over &= over - 1) {
+                int cell = boardObject.cellAt[line][Long.numberOfTrailingZeros(over)];
+                int first = 0;
+                while ((overlineStones(stones[boardObject.lineOf[first][cell]]) & (1L << boardObject.bitOf[first][cell])) == 0) {
+                    first++;
+                }
+                if (boardObject.lineOf[first][cell] != line) {
+                    continue;
+                }
+
+                for (int dir = first + 1; dir < Board.DIRECTIONS; dir++) {
+                    int dirLine = boardObject.lineOf[dir][cell];
+                    int bit = boardObject.bitOf[dir][cell];
+                    long own = stones[dirLine];
+                    long empty = boardObject.lineMask[dirLine] & ~own & ~opponentStones[dirLine];
+
+                    int after = Long.numberOfTrailingZeros(~(own >>> bit));
+                    int before = Long.numberOfLeadingZeros(~(own << (63 - bit)));
+                    int chainLength = after + before - 1;
+                    if (chainLength > 5) {
+                        continue;
+                    }
+
+                    int openEdges = (int) ((empty >>> (bit + after)) & 1);
+                    if (bit - before >= 0) {
+                        openEdges += (int) ((empty >>> (bit - before)) & 1);
+                    }
+                    skipped += weights[chainLength - 1][openEdges] * chainLength * (openEdges + 1);
+                }
+            }
+        }
+
+        return skipped;
+    }
+
+    // Stones of runs longer than five
+    private static long overlineStones(long stones) {
+        long starts = stones & (stones >>> 1) & (stones >>> 2) & (stones >>> 3) & (stones >>> 4) & (stones >>> 5);
+        long covered = 0;
+        for (int i = 0; i <= 5; i++) {
+            covered |= starts << i;
+        }
+        return covered;
+    }
+}
@@ -0,0 +1,112 @@
+package gomoku;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.Map;
+import java.util.TreeMap;
+
+// Read-only opening book mapped straight from its file, nothing is parsed at startup.
+// Layout (big endian): magic, version, board size, entry count as ints, then the entries
+// sorted by key, each a long position hash and an int cell (y * col + x). Since version 2 the
+// hash is Board.canonicalHash and the cell a move of the canonical position, so one entry
+// covers all rotations and mirror images of a position
+public class OpeningBook {
+    private static final int MAGIC = 0x474D4B42; // "GMKB"
+    private static final int VERSION = 2;
+    private static final int HEADER_BYTES = 16;
+    private static final int ENTRY_BYTES = 12;
+
+    private final MappedByteBuffer buffer;
+    private final int boardSize;
+    private final int entries;
+
+    private OpeningBook(MappedByteBuffer buffer) throws IOException {
+        if (buffer.capacity() < HEADER_BYTES || buffer.getInt(0) != MAGIC) {
+            throw new IOException("Not an opening book file");
+        }
+        if (buffer.getInt(4) != VERSION) {
+            throw new IOException("Opening book version " + buffer.getInt(4) + ", rebuild it with OpeningBookBuilder");
+        }
+
+        this.buffer = buffer;
+        this.boardSize = buffer.getInt(8);
+        this.entries = buffer.getInt(12);
+
+        if (buffer.capacity() < HEADER_BYTES + (long) entries * ENTRY_BYTES) {
+            throw new IOException("Opening book file is truncated");
+        }
+    }
+
+    public static OpeningBook open(Path path) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            // the mapping stays valid after the channel is closed
+            return new OpeningBook(channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()));
+        }
+    }
+
+    public int getBoardSize() {
+        return boardSize;
+    }
+
+    public int size() {
+        return entries;
+    }
+
+    // Binary search over the mapped entries, returns the cell to play or -1 if the position is unknown
+    public int lookup(long key) {
+        int low = 0;
+        int high = entries - 1;
+
+        while (low <= high) {
+            int middle = (low + high) >>> 1;
+            long middleKey = buffer.getLong(HEADER_BYTES + middle * ENTRY_BYTES);
+
+            if (middleKey < key) {
+                low = middle + 1;
+            } else if (middleKey > key) {
+                high = middle - 1;
+            } else {
+                return buffer.getInt(HEADER_BYTES + middle * ENTRY_BYTES + 8);
+            }
+        }
+
+        return -1;
+    }
+
+    // All entries, for tools that extend an existing book
+    public Map<Long, Integer> readAll() {
+        Map<Long, Integer> moves = new TreeMap<>();
+
+        for (int i = 0; i < entries; i++) {
+            moves.put(buffer.getLong(HEADER_BYTES + i * ENTRY_BYTES), buffer.getInt(HEADER_BYTES + i * ENTRY_BYTES + 8));
+        }
+
+        return moves;
+    }
+
+    public static void write(Path path, int boardSize, Map<Long, Integer> moves) throws IOException {
+        ByteBuffer out = ByteBuffer.allocate(HEADER_BYTES + moves.size() * ENTRY_BYTES);
+        out.putInt(MAGIC).putInt(VERSION).putInt(boardSize).putInt(moves.size());
+
+        // the TreeMap iterates in signed key order, the order lookup searches in
+        for (Map.Entry<Long, Integer> entry : new TreeMap<>(moves).entrySet()) {
+            out.putLong(entry.getKey()).putInt(entry.getValue());
+        }
+        out.flip();
+
+        Path temporary = path.resolveSibling(path.getFileName() + ".tmp");
+        try (FileChannel channel = FileChannel.open(temporary, StandardOpenOption.CREATE,
+                StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            while (out.hasRemaining()) {
+                channel.write(out);
+            }
+        }
+        Files.move(temporary, path, StandardCopyOption.REPLACE_EXISTING);
+    }
+}
@@ -0,0 +1,123 @@
+package gomoku;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.HashMap;
+import java.util.Map;
+
+// Builds or extends an opening book from deep offline searches.
+// Usage: java -cp gomoku-game.jar gomoku.OpeningBookBuilder [--book FILE] [--size S]
+//        [--plies P] [--width W] [--depth D] [--time MS]
+// Every position within P plies of the empty board along the W best moves of each side
+// is searched once, positions already in the book are kept and not searched again
+public class OpeningBookBuilder {
+
+    private Path bookPath = Path.of(Game.OPENING_BOOK_FILE);
+    private int boardSize = Board.DEFAULT_SIZE;
+    private int plies = 4;
+    private int width = 3;
+    private int depth = 8;
+    private long timeMillis = 10_000;
+
+    private Map<Long, Integer> moves = new HashMap<>();
+    private Minimax minimax;
+    private int searched = 0;
+
+    public static void main(String[] args) throws Exception {
+        OpeningBookBuilder builder = new OpeningBookBuilder();
+
+        for (int i = 0; i + 1 < args.length; i += 2) {
+            String value = args[i + 1];
+            switch (args[i]) {
+                case "--book" -> builder.bookPath = Path.of(value);
+                case "--size" -> builder.boardSize = Integer.parseInt(value);
+                case "--plies" -> builder.plies = Integer.parseInt(value);
+                case "--width" -> builder.width = Integer.parseInt(value);
+                case "--depth" -> builder.depth = Integer.parseInt(value);
+                case "--time" -> builder.timeMillis = Long.parseLong(value);
+                default -> {
+                    System.out.println("Unknown option " + args[i]);
+                    return;
+                }
+            }
+        }
+
+        builder.build();
+    }
+
+    public void build() throws Exception {
+        if (Files.exists(bookPath)) {
+            OpeningBook existing = OpeningBook.open(bookPath);
+            if (existing.getBoardSize() != boardSize) {
+                System.out.println(bookPath + " is a " + existing.getBoardSize() + "x" + existing.getBoardSize() + " book");
+                return;
+            }
+            moves.putAll(existing.readAll());
+            System.out.println("Extending " + bookPath + " with " + moves.size() + " positions");
+        }
+
+        minimax = new Minimax(256);
+        minimax.setMaxDepth(depth);
+        minimax.setMoveTime(timeMillis);
+        minimax.setThreads(Runtime.getRuntime().availableProcessors());
+
+        explore(new Board(boardSize), 'B', 0);
+        minimax.shutdown();
+
+        OpeningBook.write(bookPath, boardSize, moves);
+        System.out.println("Searched " + searched + " new positions, " + bookPath + " holds " + moves.size());
+    }
+
+    private void explore(Board board, char toMove, int ply) {
+        if (ply >= plies) {
+            return;
+        }
+
+        // one entry per equivalence class, holding the move of the canonical position
+        long key = board.canonicalHash();
+        int symmetry = board.canonicalSymmetry();
+        if (!moves.containsKey(key)) {
+            char opponent = toMove == 'B' ? 'W' : 'B';
+            int[] best = minimax.findBestMove(board, player(toMove), player(opponent));
+            moves.put(key, board.toCanonical(best[1] * board.col + best[0], symmetry));
+            searched++;
+            System.out.println("ply " + ply + ": " + moves.size() + " positions, depth " + minimax.depthReached);
+        }
+
+        // the book move first, then the best other candidates by static score. Without any
+        // scored candidate (the empty board) there is nothing sensible to branch on
+        int bookCell = board.fromCanonical(moves.get(key), symmetry);
+        exploreMove(board, toMove, bookCell, ply);
+
+        long[] candidates = new long[board.movesLeft];
+        int count = MovesAnalyzer.removeSymmetricMoves(board, candidates,
+                MovesAnalyzer.getPossibleMoves(board, toMove, candidates));
+        int explored = 1;
+        for (int i = 0; i < count && explored < width && MovesAnalyzer.moveScore(candidates[i]) > 0; i++) {
+            int cell = MovesAnalyzer.moveCell(candidates[i]);
+            if (cell != bookCell) {
+                exploreMove(board, toMove, cell, ply);
+                explored++;
+            }
+        }
+    }
+
+    private void exploreMove(Board board, char toMove, int cell, int ply) {
+        int x = cell % board.col;
+        int y = cell / board.col;
+
+        if (board.makeAIMove(x, y, toMove)) {
+            if (!MovesAnalyzer.checkWinningCondition(board, toMove, x, y)) {
+                explore(board, toMove == 'B' ? 'W' : 'B', ply + 1);
+            }
+            board.undoAIMove(x, y, toMove);
+        }
+    }
+
+    private static Player player(char symbol) {
+        Player player = new Player();
+        player.setName(String.valueOf(symbol));
+        player.setSymbol(symbol);
+        return player;
+    }
+}
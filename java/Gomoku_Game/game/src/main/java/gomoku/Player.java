@@ -1,3 +1,5 @@
+package gomoku;
+
 public class Player {
     private String name;
     private char symbol;
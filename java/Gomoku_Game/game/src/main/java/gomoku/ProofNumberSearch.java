@@ -0,0 +1,397 @@
+package gomoku;
+
+import java.util.Arrays;
+
+// Depth-first proof-number search (df-pn) that solves late-game positions exactly.
+// Every empty cell is a move, so a result holds against any reply, not only the ones
+// Minimax would look at. A draw (full board) counts as a failure for the side trying to
+// win, so a position is solved with two searches: can the side to move win, and if not,
+// can the opponent. A forced block is the only move searched when the opponent threatens
+// a five, a side facing two fives loses at once, and a position where the side trying to win
+// cannot make a five anywhere any more is a failure without searching it. Cells that no
+// five of either side can use any more are equivalent, only one of them is searched.
+// Proof and disproof numbers live in a bounded table that survives between calls; entries
+// are keyed by position and the side trying to win, so proofs from earlier moves stay valid
+public class ProofNumberSearch {
+
+    // What solve proved for the side to move
+    public static final int UNKNOWN = 0;
+    public static final int WIN = 1;
+    public static final int DRAW = 2;
+    public static final int LOSS = 3;
+
+    public static final int DEFAULT_NODE_LIMIT = 200_000;
+    public static final int DEFAULT_TABLE_MEGABYTES = 8;
+
+    // Proof numbers saturate here, a node with pn 0 and dn INFINITY is proven and the reverse disproven
+    private static final int INFINITY = Integer.MAX_VALUE / 4;
+    // Hashed into the key of the search where white tries to win
+    private static final long WHITE_ATTACKER_KEY = 0x2545F4914F6CDD1DL;
+    // 16 bytes per entry: the key and the packed proof and disproof numbers
+    private static final int ENTRY_BYTES = 16;
+
+    // immediate outcomes reported by expand instead of a move count
+    private static final int WINS_NOW = -1;
+    private static final int LOSES_NOW = -2;
+
+    private final long[] keys;
+    private final long[] numbers;
+    private final int indexMask;
+
+    private int nodeLimit = DEFAULT_NODE_LIMIT;
+    // System.currentTimeMillis() after which the search gives up, looked at every CLOCK_CHECK_INTERVAL nodes
+    private static final int CLOCK_CHECK_INTERVAL = 1024;
+    private long deadline = Long.MAX_VALUE;
+    private boolean stopped;
+
+    public long nodes = 0;
+    public int lastResult = UNKNOWN;
+    // true when the last call ran out of nodes or time before proving anything
+    public boolean limitReached = false;
+
+    private Board board;
+    private char attacker;
+    private char defender;
+    private long attackerKey;
+    private int winningCell;
+    private int[][] moveBuffers = new int[0][];
+    private long[] scoredMoves = new long[0];
+    private int[] seen = new int[0];
+    private long[] liveCells = new long[0];
+    private int seenStamp = 0;
+
+    public ProofNumberSearch() {
+        this(DEFAULT_TABLE_MEGABYTES);
+    }
+
+    public ProofNumberSearch(int tableMegabytes) {
+        long entries = Math.max(2, (long) tableMegabytes * 1024 * 1024 / ENTRY_BYTES);
+        int size = Integer.highestOneBit((int) Math.min(entries, 1 << 30));
+        keys = new long[size];
+        numbers = new long[size];
+        indexMask = size - 1;
+    }
+
+    public void setNodeLimit(int nodeLimit) {
+        this.nodeLimit = nodeLimit;
+    }
+
+    // Long.MAX_VALUE for no time limit
+    public void setDeadline(long deadline) {
+        this.deadline = deadline;
+    }
+
+    public void clear() {
+        Arrays.fill(keys, 0);
+        Arrays.fill(numbers, 0);
+    }
+
+    // Solves the position for toMove. Returns the cell (y * col + x) that wins, or holds the draw
+    // when no win exists, and -1 when the position is lost, when no five is possible any more so
+    // any move draws, or when the node limit or the deadline was reached first.
+    // The kind of result is left in lastResult
+    public int solve(Board board, char toMove) {
+        char opponent = toMove == 'B' ? 'W' : 'B';
+        this.board = board;
+        nodes = 0;
+        limitReached = false;
+        stopped = false;
+        lastResult = UNKNOWN;
+
+        if (search(toMove, opponent, true) == 0) {
+            lastResult = WIN;
+            return winningCell >= 0 ? winningCell : provenChild(toMove, true);
+        }
+        if (limitReached) {
+            return -1;
+        }
+
+        // no win, so the best toMove can get is a draw: it holds when the opponent's win is disproven
+        if (search(opponent, toMove, false) == 0) {
+            lastResult = LOSS;
+            return -1;
+        }
+        if (limitReached) {
+            return -1;
+        }
+
+        lastResult = DRAW;
+        return provenChild(toMove, false);
+    }
+
+    // Proof number of the root with attacker trying to win, 0 when proven
+    private int search(char attacker, char defender, boolean attackerToMove) {
+        this.attacker = attacker;
+        this.defender = defender;
+        this.attackerKey = attacker == 'W' ? WHITE_ATTACKER_KEY : 0;
+        winningCell = -1;
+
+        long result = mid(0, board.canonicalHash() ^ attackerKey, attackerToMove, INFINITY, INFINITY);
+        int proof = proof(result);
+        int disproof = disproof(result);
+        if (proof != 0 && disproof != 0) {
+            limitReached = true;
+        }
+        return proof;
+    }
+
+    // The root move that keeps the result: for the winner a move whose position is proven,
+    // for the defender a move whose position is disproven. When the table lost the entry
+    // the move cannot be named and -1 is returned
+    private int provenChild(char toMove, boolean proven) {
+        int[] moves = buffer(0);
+        int numMoves = expand(toMove, moves);
+        if (numMoves == 1) {
+            return moves[0];
+        }
+
+        for (int i = 0; i < numMoves; i++) {
+            long entry = lookup(board.canonicalHashAfter(moves[i], toMove) ^ attackerKey);
+            if (entry != 0 && (proven ? proof(entry) : disproof(entry)) == 0) {
+                return moves[i];
+            }
+        }
+        return -1;
+    }
+
+    // Multiple iterative deepening: searches the node until its proof number reaches thresholdProof
+    // or its disproof number reaches thresholdDisproof, and returns both packed.
+    // At OR nodes the attacker moves: proof = min over the children, disproof = sum. AND nodes
+    // are the reverse
+    private long mid(int ply, long key, boolean orNode, int thresholdProof, int thresholdDisproof) {
+        nodes++;
+        if (nodes >= nodeLimit || (nodes % CLOCK_CHECK_INTERVAL == 0 && System.currentTimeMillis() >= deadline)) {
+            stopped = true;
+        }
+
+        int[] moves = buffer(ply);
+        int numMoves = expand(orNode ? attacker : defender, moves);
+        if (numMoves == WINS_NOW || numMoves == LOSES_NOW || numMoves == 0) {
+            // the side to move makes a five, faces two fives, or the game can only end in a draw
+            boolean attackerWins = numMoves != 0 && (numMoves == WINS_NOW) == orNode;
+            long result = attackerWins ? pack(0, INFINITY) : pack(INFINITY, 0);
+            store(key, result);
+            return result;
+        }
+
+        char symbol = orNode ? attacker : defender;
+        while (true) {
+            // the child to search next minimises proof (OR) or disproof (AND), second keeps the
+            // runner-up so the search comes back when the best child gets worse than it
+            long sum = 0;
+            int best = -1;
+            int bestValue = INFINITY + 1;
+            int second = INFINITY;
+            int bestProof = 0;
+            int bestDisproof = 0;
+
+            for (int i = 0; i < numMoves; i++) {
+                long entry = lookup(board.canonicalHashAfter(moves[i], symbol) ^ attackerKey);
+                int childProof = entry == 0 ? 1 : proof(entry);
+                int childDisproof = entry == 0 ? 1 : disproof(entry);
+                int value = orNode ? childProof : childDisproof;
+                sum += orNode ? childDisproof : childProof;
+
+                if (value < bestValue) {
+                    second = bestValue;
+                    bestValue = value;
+                    best = i;
+                    bestProof = childProof;
+                    bestDisproof = childDisproof;
+                } else if (value < second) {
+                    second = value;
+                }
+            }
+
+            int sumValue = (int) Math.min(sum, INFINITY);
+            int proof = orNode ? bestValue : sumValue;
+            int disproof = orNode ? sumValue : bestValue;
+            if (proof == 0 || disproof == 0) {
+                // a proven OR child or a disproven AND child settles the node, the sums may not be INFINITY yet
+                proof = proof == 0 ? 0 : INFINITY;
+                disproof = disproof == 0 ? 0 : INFINITY;
+            }
+
+            if (proof >= thresholdProof || disproof >= thresholdDisproof || stopped
+                    || proof == 0 || disproof == 0) {
+                long result = pack(proof, disproof);
+                store(key, result);
+                return result;
+            }
+
+            // 1 + 1/4 trick: the child may go a bit past the runner-up before control returns,
+            // which saves most of the re-expansions of plain df-pn
+            int childThresholdProof;
+            int childThresholdDisproof;
+            if (orNode) {
+                childThresholdProof = (int) Math.min(thresholdProof, second + (second >> 2) + 1L);
+                childThresholdDisproof = (int) Math.min(INFINITY, (long) thresholdDisproof - disproof + bestDisproof);
+            } else {
+                childThresholdDisproof = (int) Math.min(thresholdDisproof, second + (second >> 2) + 1L);
+                childThresholdProof = (int) Math.min(INFINITY, (long) thresholdProof - proof + bestProof);
+            }
+
+            int cell = moves[best];
+            int x = cell % board.col;
+            int y = cell / board.col;
+            long childKey = board.canonicalHashAfter(cell, symbol) ^ attackerKey;
+            board.makeAIMove(x, y, symbol);
+            mid(ply + 1, childKey, !orNode, childThresholdProof, childThresholdDisproof);
+            board.undoAIMove(x, y, symbol);
+        }
+    }
+
+    // Writes the moves of toMove into moves and returns how many there are, or WINS_NOW when it
+    // has a five, or LOSES_NOW when the opponent threatens two. A single opponent five leaves the
+    // block as the only move. Otherwise every empty cell is a move, the candidate cells by
+    // static score first and the far away ones after them
+    private int expand(char toMove, int[] moves) {
+        if (!markLiveWindows()) {
+            return 0;
+        }
+
+        char opponent = toMove == 'B' ? 'W' : 'B';
+        int block = -1;
+        boolean twoFives = false;
+
+        for (int cell = 0; cell < board.col * board.row; cell++) {
+            int x = cell % board.col;
+            int y = cell / board.col;
+            if (board.board[y][x] != board.EMPTY) {
+                continue;
+            }
+            if (MovesAnalyzer.checkWinningCondition(board, toMove, x, y)) {
+                if (moves == moveBuffers[0]) {
+                    winningCell = cell;
+                }
+                return WINS_NOW;
+            }
+            if (MovesAnalyzer.checkWinningCondition(board, opponent, x, y)) {
+                // own fives further on still come first
+                twoFives = block >= 0;
+                block = cell;
+            }
+        }
+
+        if (twoFives) {
+            return LOSES_NOW;
+        }
+        if (block >= 0) {
+            moves[0] = block;
+            return 1;
+        }
+        if (board.movesLeft == 0) {
+            return 0;
+        }
+
+        // cells away from every live window are passes, one of them stands for all
+        int numScored = MovesAnalyzer.getPossibleMoves(board, toMove, scoredMoves);
+        seenStamp++;
+        int numMoves = 0;
+        int pass = -1;
+        for (int i = 0; i < numScored; i++) {
+            int cell = MovesAnalyzer.moveCell(scoredMoves[i]);
+            seen[cell] = seenStamp;
+            if (isPass(cell)) {
+                pass = cell;
+            } else {
+                moves[numMoves++] = cell;
+            }
+        }
+        for (int cell = 0; cell < board.col * board.row; cell++) {
+            if (seen[cell] != seenStamp && board.board[cell / board.col][cell % board.col] == board.EMPTY) {
+                if (isPass(cell)) {
+                    pass = cell;
+                } else {
+                    moves[numMoves++] = cell;
+                }
+            }
+        }
+        if (pass >= 0) {
+            moves[numMoves++] = pass;
+        }
+        return numMoves;
+    }
+
+    // A window is five cells of a line where a color can still make an exact five: none of the
+    // opponent's stones inside and none of its own right next to it. Marks every line's cells that
+    // are inside or next to a live window of either color, and returns whether the attacker has one.
+    // A stone on any other cell never changes what either side can still make, so all those cells
+    // are the same move: a pass
+    private boolean markLiveWindows() {
+        boolean attackerAlive = false;
+        int attackerColor = Board.colorIndex(attacker);
+
+        for (int line = 0; line < board.lineMask.length; line++) {
+            long marked = 0;
+            for (int color = 0; color < 2; color++) {
+                long own = board.lines[color][line];
+                long free = board.lineMask[line] & ~board.lines[1 - color][line];
+                long starts = free & (free >>> 1) & (free >>> 2) & (free >>> 3) & (free >>> 4)
+                        & ~(own << 1) & ~(own >>> 5);
+                if (starts != 0 && color == attackerColor) {
+                    attackerAlive = true;
+                }
+                marked |= (starts >>> 1) | starts | (starts << 1) | (starts << 2) | (starts << 3)
+                        | (starts << 4) | (starts << 5);
+            }
+            liveCells[line] = marked;
+        }
+
+        return attackerAlive;
+    }
+
+    private boolean isPass(int cell) {
+        for (int dir = 0; dir < Board.DIRECTIONS; dir++) {
+            if ((liveCells[board.lineOf[dir][cell]] & (1L << board.bitOf[dir][cell])) != 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private int[] buffer(int ply) {
+        int cells = board.col * board.row;
+        if (ply >= moveBuffers.length) {
+            moveBuffers = Arrays.copyOf(moveBuffers, ply + 1);
+        }
+        if (moveBuffers[ply] == null || moveBuffers[ply].length < cells) {
+            moveBuffers[ply] = new int[cells];
+        }
+        if (scoredMoves.length < cells) {
+            scoredMoves = new long[cells];
+            seen = new int[cells];
+        }
+        if (liveCells.length != board.lineMask.length) {
+            liveCells = new long[board.lineMask.length];
+        }
+        return moveBuffers[ply];
+    }
+
+    // Returns the packed numbers for the key or 0 if there is no entry
+    private long lookup(long key) {
+        int index = (int) key & indexMask;
+        return keys[index] == key ? numbers[index] : 0;
+    }
+
+    // Always replaces, the table only has to hold the current proof tree
+    private void store(long key, long result) {
+        int index = (int) key & indexMask;
+        keys[index] = key;
+        numbers[index] = result;
+    }
+
+    // A stored entry is never 0: proven and disproven nodes have one side at INFINITY,
+    // open ones have both numbers above 0
+    private static long pack(int proof, int disproof) {
+        return ((long) proof << 32) | disproof;
+    }
+
+    private static int proof(long packed) {
+        return (int) (packed >>> 32);
+    }
+
+    private static int disproof(long packed) {
+        return (int) packed;
+    }
+}
@@ -0,0 +1,54 @@
+package gomoku;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Timespan;
+
+// One event per findBestMove, recorded when a flight recording with this event enabled is running
+@Name("gomoku.Search")
+@Label("Gomoku Search")
+@Category("Gomoku")
+@Description("One AI move search")
+@StackTrace(false)
+class SearchEvent extends Event {
+
+    @Label("Board Size")
+    int boardSize;
+
+    @Label("Source")
+    @Description("search, book, threat or ponder")
+    String source;
+
+    @Label("Depth")
+    int depth;
+
+    @Label("Nodes")
+    long nodes;
+
+    @Label("Leaf Evaluations")
+    long leafEvaluations;
+
+    @Label("Cutoffs")
+    long cutoffs;
+
+    @Label("First Move Cutoffs")
+    long firstMoveCutoffs;
+
+    @Label("Move Generation Time")
+    @Timespan(Timespan.NANOSECONDS)
+    long moveGenerationTime;
+
+    @Label("Evaluation Time")
+    @Timespan(Timespan.NANOSECONDS)
+    long evaluationTime;
+
+    @Label("Move")
+    int move;
+
+    @Label("Score")
+    int score;
+}
@@ -0,0 +1,117 @@
+package gomoku;
+
+import java.util.Arrays;
+
+// Counters of one search, read with Minimax.getMetrics(). Nodes, cutoffs, the nodes of each
+// iteration and the move score cache lookups are always counted, the rest only when the JVM runs with -Dgomoku.metrics=true.
+// ENABLED is a static final, so with metrics off the JIT drops the timing code from the search
+public class SearchMetrics {
+
+    public static final boolean ENABLED = Boolean.getBoolean("gomoku.metrics");
+
+    // Cutoffs by the index of the move that caused them, the last bucket counts every later move
+    public static final int CUTOFF_BUCKETS = 8;
+
+    public long nodes;
+    public long leafEvaluations;
+    public long moveGenerations;
+    public long moveGenerationNanos;
+    public long evaluationNanos;
+    public long cutoffs;
+    public long firstMoveCutoffs;
+    public long researches;
+    public long quiescenceNodes;
+    public long elapsedNanos;
+    public int depthReached;
+    // Move scores getPossibleMoves found in the board's cache and the ones it had to compute
+    public long scoreCacheHits;
+    public long scoreCacheMisses;
+    public final long[] cutoffsByMoveIndex = new long[CUTOFF_BUCKETS];
+    // Nodes of the main search spent on each completed depth, index 0 is depth 1
+    public long[] iterationNodes = new long[0];
+
+    public void reset() {
+        nodes = leafEvaluations = moveGenerations = 0;
+        moveGenerationNanos = evaluationNanos = 0;
+        cutoffs = firstMoveCutoffs = researches = quiescenceNodes = elapsedNanos = 0;
+        depthReached = 0;
+        scoreCacheHits = scoreCacheMisses = 0;
+        Arrays.fill(cutoffsByMoveIndex, 0);
+        iterationNodes = new long[0];
+    }
+
+    // Adds a helper thread's counters, the main search keeps its own depth and iterations
+    public void add(SearchMetrics other) {
+        nodes += other.nodes;
+        leafEvaluations += other.leafEvaluations;
+        moveGenerations += other.moveGenerations;
+        moveGenerationNanos += other.moveGenerationNanos;
+        evaluationNanos += other.evaluationNanos;
+        cutoffs += other.cutoffs;
+        firstMoveCutoffs += other.firstMoveCutoffs;
+        researches += other.researches;
+        quiescenceNodes += other.quiescenceNodes;
+        scoreCacheHits += other.scoreCacheHits;
+        scoreCacheMisses += other.scoreCacheMisses;
+        for (int i = 0; i < CUTOFF_BUCKETS; i++) {
+            cutoffsByMoveIndex[i] += other.cutoffsByMoveIndex[i];
+        }
+    }
+
+    void recordCutoff(int moveIndex) {
+        cutoffsByMoveIndex[Math.min(moveIndex, CUTOFF_BUCKETS - 1)]++;
+    }
+
+    void recordIteration(int depth, long iterationNodes) {
+        if (this.iterationNodes.length < depth) {
+            this.iterationNodes = Arrays.copyOf(this.iterationNodes, depth);
+        }
+        this.iterationNodes[depth - 1] = iterationNodes;
+    }
+
+    public double nodesPerSecond() {
+        return elapsedNanos == 0 ? 0 : nodes / (elapsedNanos / 1e9);
+    }
+
+    public double scoreCacheHitRatio() {
+        long lookups = scoreCacheHits + scoreCacheMisses;
+        return lookups == 0 ? 0 : (double) scoreCacheHits / lookups;
+    }
+
+    public double microsPerMoveGeneration() {
+        return moveGenerations == 0 ? 0 : moveGenerationNanos / 1e3 / moveGenerations;
+    }
+
+    // Growth of the tree from one depth to the next. Taken from the last two completed iterations,
+    // or as the depth-th root of the node count when there was only one
+    public double effectiveBranchingFactor() {
+        if (depthReached >= 2 && iterationNodes.length >= depthReached && iterationNodes[depthReached - 2] > 0) {
+            return (double) iterationNodes[depthReached - 1] / iterationNodes[depthReached - 2];
+        }
+        if (depthReached >= 1) {
+            return Math.pow(nodes, 1.0 / depthReached);
+        }
+        return 0;
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder text = new StringBuilder();
+        text.append(String.format("depth %d, %d nodes (%d in quiescence), %.0f nodes/sec, branching factor %.2f%n",
+                depthReached, nodes, quiescenceNodes, nodesPerSecond(), effectiveBranchingFactor()));
+        text.append(String.format("move score cache: %.1f%% hits of %d lookups%n",
+                100 * scoreCacheHitRatio(), scoreCacheHits + scoreCacheMisses));
+        if (!ENABLED) {
+            return text.append("(run with -Dgomoku.metrics=true for evaluation and move generation counters)").toString();
+        }
+
+        text.append(String.format("%d leaf evaluations in %.1f ms, %d move generations in %.1f ms (%.2f us each)%n",
+                leafEvaluations, evaluationNanos / 1e6, moveGenerations, moveGenerationNanos / 1e6, microsPerMoveGeneration()));
+        text.append("cutoffs ").append(cutoffs).append(" by move index:");
+        for (int i = 0; i < CUTOFF_BUCKETS; i++) {
+            text.append(' ').append(i == CUTOFF_BUCKETS - 1 ? i + "+" : String.valueOf(i))
+                    .append('=').append(cutoffsByMoveIndex[i]);
+        }
+        return text.toString();
+    }
+}
@@ -0,0 +1,417 @@
+package gomoku;
+
+import java.util.Arrays;
+
+// Threat-space search run ahead of Minimax. The attacker only plays fours (VCF, victory by
+// continuous fours) or fours and open threes (VCT), the defender only the replies that can
+// stop them, so long forced wins are proven with a tiny number of nodes.
+// A four is a move after which the attacker completes an exact five somewhere on its lines,
+// a three one after which a single further move makes a four with two winning cells
+public class ThreatSearch {
+
+    // What findForcedMove found
+    public static final int NONE = 0;
+    public static final int WIN = 1;    // five in one move
+    public static final int BLOCK = 2;  // the opponent threatens a five
+    public static final int VCF = 3;
+    public static final int VCT = 4;
+
+    // Attacker moves along one line of play
+    public static final int DEFAULT_VCF_DEPTH = 20;
+    public static final int DEFAULT_VCT_DEPTH = 4;
+    // Depth of the defender's own VCF that refutes a three
+    private static final int COUNTER_VCF_DEPTH = 8;
+    public static final int DEFAULT_NODE_LIMIT = 20_000;
+
+    // Cells on either side of a move that a five through it can use
+    private static final int REACH = 4;
+
+    private int vcfDepth = DEFAULT_VCF_DEPTH;
+    private int vctDepth = DEFAULT_VCT_DEPTH;
+    private int nodeLimit = DEFAULT_NODE_LIMIT;
+
+    public long nodes = 0;
+    public int lastResult = NONE;
+    // true when the last call ran out of nodes before finishing
+    public boolean limitReached = false;
+
+    private int rootMove;
+    private int[][] cellBuffers = new int[0][];
+
+    public void setVcfDepth(int vcfDepth) {
+        this.vcfDepth = vcfDepth;
+    }
+
+    // 0 turns the three search off, only fours are searched then
+    public void setVctDepth(int vctDepth) {
+        this.vctDepth = vctDepth;
+    }
+
+    public void setNodeLimit(int nodeLimit) {
+        this.nodeLimit = nodeLimit;
+    }
+
+    // Returns the cell (y * col + x) the attacker has to play, or -1 when nothing is forced:
+    // a five, the block of an opponent five, or the first move of a proven VCF or VCT.
+    // The kind of result is left in lastResult
+    public int findForcedMove(Board board, char attacker) {
+        char defender = attacker == 'B' ? 'W' : 'B';
+        nodes = 0;
+        limitReached = false;
+        lastResult = NONE;
+
+        int cell = findFiveCell(board, attacker);
+        if (cell >= 0) {
+            lastResult = WIN;
+            return cell;
+        }
+
+        cell = findFiveCell(board, defender);
+        if (cell >= 0) {
+            lastResult = BLOCK;
+            return cell;
+        }
+
+        if (attackerWins(board, attacker, defender, -1, vcfDepth, false, 0)) {
+            lastResult = VCF;
+            return rootMove;
+        }
+
+        if (vctDepth > 0 && !limitReached && attackerWins(board, attacker, defender, -1, vctDepth, true, 0)) {
+            lastResult = VCT;
+            return rootMove;
+        }
+
+        return -1;
+    }
+
+    // First empty cell where symbol completes a five, -1 if there is none
+    private static int findFiveCell(Board board, char symbol) {
+        for (int cell = 0; cell < board.col * board.row; cell++) {
+            int x = cell % board.col;
+            int y = cell / board.col;
+            if (board.board[y][x] == board.EMPTY && MovesAnalyzer.checkWinningCondition(board, symbol, x, y)) {
+                return cell;
+            }
+        }
+
+        return -1;
+    }
+
+    // Attacker to move. Earlier fives of either side have all been answered, so the only
+    // new five threat can come from the defender's last reply
+    private boolean attackerWins(Board board, char attacker, char defender, int lastReply, int depth, boolean threes, int ply) {
+        if (++nodes > nodeLimit) {
+            limitReached = true;
+        }
+        if (limitReached || depth <= 0) {
+            return false;
+        }
+
+        int[] cells = cellsForPly(ply, board);
+
+        if (lastReply >= 0) {
+            int fives = collectFiveCells(board, defender, lastReply, cells);
+            if (fives > 1) {
+                return false;
+            }
+            if (fives == 1) {
+                // the block is forced, it only keeps the initiative if it is a threat itself
+                int block = cells[0];
+                return playsThreat(board, attacker, defender, block, depth, threes, ply);
+            }
+        }
+
+        int count = collectThreats(board, attacker, threes, cells);
+        for (int i = 0; i < count; i++) {
+            if (playsThreat(board, attacker, defender, cells[i], depth, threes, ply)) {
+                return true;
+            }
+        }
+
+        return false;
+    }
+
+    private boolean playsThreat(Board board, char attacker, char defender, int cell, int depth, boolean threes, int ply) {
+        int x = cell % board.col;
+        int y = cell / board.col;
+
+        board.makeAIMove(x, y, attacker);
+        boolean wins = defenderLoses(board, attacker, defender, cell, depth, threes, ply);
+        board.undoAIMove(x, y, attacker);
+
+        if (wins && ply == 0) {
+            rootMove = cell;
+        }
+        return wins;
+    }
+
+    // Defender to reply to the attacker's move
+    private boolean defenderLoses(Board board, char attacker, char defender, int move, int depth, boolean threes, int ply) {
+        int[] cells = cellsForPly(ply + 1, board);
+        int count = collectFiveCells(board, attacker, move, cells);
+
+        if (count > 1) {
+            return true;
+        }
+        if (count == 0) {
+            if (!threes || threatOf(board, Board.colorIndex(attacker), move, true) != MovesAnalyzer.THREAT_OPEN_THREE) {
+                return false;
+            }
+
+            // a three is refuted by the defender's own forced win, since every move of it is a four
+            if (attackerWins(board, defender, attacker, -1, COUNTER_VCF_DEPTH, false, ply + 2) || limitReached) {
+                return false;
+            }
+
+            count = collectThreeReplies(board, defender, move, cells);
+        }
+
+        for (int i = 0; i < count; i++) {
+            int reply = cells[i];
+            int x = reply % board.col;
+            int y = reply / board.col;
+
+            board.makeAIMove(x, y, defender);
+            boolean wins = attackerWins(board, attacker, defender, reply, depth - 1, threes, ply + 2);
+            board.undoAIMove(x, y, defender);
+
+            if (!wins) {
+                return false;
+            }
+        }
+
+        return true;
+    }
+
+    // Empty cells within REACH of from on its four lines where symbol completes an exact five,
+    // written to cells. Returns how many there are
+    private static int collectFiveCells(Board board, char symbol, int from, int[] cells) {
+        int count = 0;
+        long[] own = board.lines[Board.colorIndex(symbol)];
+
+        for (int dir = 0; dir < Board.DIRECTIONS; dir++) {
+            int line = board.lineOf[dir][from];
+            int bit = board.bitOf[dir][from];
+            long fives = fiveCells(own[line], emptyCells(board, line), bit);
+
+            while (fives != 0) {
+                int fiveBit = Long.numberOfTrailingZeros(fives);
+                fives &= fives - 1;
+                cells[count++] = from + (fiveBit - bit) * cellStride(board, dir);
+            }
+        }
+
+        return count;
+    }
+
+    // THREAT_FOUR if symbol playing cell gets a winning cell on one of its lines, THREAT_OPEN_THREE
+    // if one more move there makes a four with two winning cells, else THREAT_NONE. Works on the
+    // line bitboards only, cell may be empty or already hold the stone
+    private static int threatOf(Board board, int color, int cell, boolean threes) {
+        int threat = MovesAnalyzer.THREAT_NONE;
+
+        for (int dir = 0; dir < Board.DIRECTIONS; dir++) {
+            int line = board.lineOf[dir][cell];
+            int bit = board.bitOf[dir][cell];
+            long own = board.lines[color][line] | (1L << bit);
+            long empty = emptyCells(board, line) & ~(1L << bit);
+            int stones = Long.bitCount(own & reach(bit));
+
+            if (stones >= 4 && fiveCells(own, empty, bit) != 0) {
+                return MovesAnalyzer.THREAT_FOUR;
+            }
+            if (threes && stones >= 3 && threat == MovesAnalyzer.THREAT_NONE && makesThree(own, empty, bit)) {
+                threat = MovesAnalyzer.THREAT_OPEN_THREE;
+            }
+        }
+
+        return threat;
+    }
+
+    // Empty cells of a line where color playing makes the threat on that line: THREAT_FIVE an exact
+    // five, THREAT_FOUR a winning cell, THREAT_OPEN_THREE a four with two winning cells.
+    // One bit per cell of the line, Board.cellAt turns them into cells
+    public static long lineThreats(Board board, int color, int line, int threat) {
+        long own = board.lines[color][line];
+        long empty = emptyCells(board, line);
+        long candidates = empty & nearStones(own);
+        long threats = 0;
+
+        while (candidates != 0) {
+            long cell = candidates & -candidates;
+            candidates ^= cell;
+            int bit = Long.numberOfTrailingZeros(cell);
+
+            boolean makes;
+            if (threat == MovesAnalyzer.THREAT_FIVE) {
+                makes = (MovesAnalyzer.exactFiveStarts(own | cell) & ((0x1FL << bit) >>> 4)) != 0;
+            } else if (threat == MovesAnalyzer.THREAT_FOUR) {
+                makes = fiveCells(own | cell, empty & ~cell, bit) != 0;
+            } else {
+                makes = makesThree(own | cell, empty & ~cell, bit);
+            }
+            if (makes) {
+                threats |= cell;
+            }
+        }
+
+        return threats;
+    }
+
+    // Bits within REACH of a stone
+    private static long nearStones(long stones) {
+        long near = stones;
+        for (int i = 1; i <= REACH; i++) {
+            near |= stones << i | stones >>> i;
+        }
+        return near;
+    }
+
+    // Empty cells of a line within REACH of bit where own completes an exact five through them
+    private static long fiveCells(long own, long empty, int bit) {
+        long fives = 0;
+        long candidates = empty & reach(bit);
+
+        while (candidates != 0) {
+            long cell = candidates & -candidates;
+            candidates ^= cell;
+            int cellBit = Long.numberOfTrailingZeros(cell);
+
+            if ((MovesAnalyzer.exactFiveStarts(own | cell) & ((0x1FL << cellBit) >>> 4)) != 0) {
+                fives |= cell;
+            }
+        }
+
+        return fives;
+    }
+
+    // Some empty cell within REACH of bit turns the line into a four with two winning cells
+    private static boolean makesThree(long own, long empty, int bit) {
+        long candidates = empty & reach(bit);
+
+        while (candidates != 0) {
+            long cell = candidates & -candidates;
+            candidates ^= cell;
+
+            if (Long.bitCount(fiveCells(own | cell, empty & ~cell, Long.numberOfTrailingZeros(cell))) > 1) {
+                return true;
+            }
+        }
+
+        return false;
+    }
+
+    private static long reach(int bit) {
+        return (0x1FFL << bit) >>> REACH;
+    }
+
+    private static long emptyCells(Board board, int line) {
+        return board.lineMask[line] & ~board.lines[0][line] & ~board.lines[1][line];
+    }
+
+    // Cell index difference between neighbouring bits of a line, following the line layout
+    // of Board: diagonals and rows are indexed by x, columns by y, anti-diagonals by x
+    private static int cellStride(Board board, int dir) {
+        if (dir == 0) return board.col + 1;
+        if (dir == 1) return board.col;
+        if (dir == 2) return 1 - board.col;
+        return 1;
+    }
+
+    // Attacker moves worth trying: fours first, then threes if allowed. Cells are filtered on
+    // the number of own stones around them before the exact test
+    private int collectThreats(Board board, char symbol, boolean threes, int[] cells) {
+        int color = Board.colorIndex(symbol);
+        int fours = 0;
+        int count = 0;
+
+        for (int cell = 0; cell < board.col * board.row; cell++) {
+            if (board.board[cell / board.col][cell % board.col] != board.EMPTY) {
+                continue;
+            }
+
+            int nearby = mostStonesInReach(board, color, cell);
+            if (nearby < 2 || (nearby < 3 && !threes)) {
+                continue;
+            }
+
+            int threat = threatOf(board, color, cell, threes);
+            if (threat == MovesAnalyzer.THREAT_FOUR) {
+                // keep fours in front of the threes already collected
+                cells[count++] = cells[fours];
+                cells[fours++] = cell;
+            } else if (threat == MovesAnalyzer.THREAT_OPEN_THREE) {
+                cells[count++] = cell;
+            }
+        }
+
+        return count;
+    }
+
+    // Replies to a three: the empty cells around it and every four the defender can make
+    private static int collectThreeReplies(Board board, char defender, int move, int[] cells) {
+        int count = 0;
+        int moveX = move % board.col;
+        int moveY = move / board.col;
+
+        for (int d = 0; d < Board.DIRECTIONS; d++) {
+            int dx = MovesAnalyzer.arrayWithDeltaValuesToFindHalfAdjacentCells[d][0];
+            int dy = MovesAnalyzer.arrayWithDeltaValuesToFindHalfAdjacentCells[d][1];
+            for (int k = -REACH; k <= REACH; k++) {
+                int x = moveX + k * dx;
+                int y = moveY + k * dy;
+                if (k != 0 && x >= 0 && x < board.col && y >= 0 && y < board.row && board.board[y][x] == board.EMPTY) {
+                    cells[count++] = y * board.col + x;
+                }
+            }
+        }
+
+        int color = Board.colorIndex(defender);
+        int aroundThree = count;
+        for (int cell = 0; cell < board.col * board.row; cell++) {
+            if (board.board[cell / board.col][cell % board.col] == board.EMPTY
+                    && mostStonesInReach(board, color, cell) >= 3
+                    && threatOf(board, color, cell, false) == MovesAnalyzer.THREAT_FOUR
+                    && !contains(cells, aroundThree, cell)) {
+                cells[count++] = cell;
+            }
+        }
+
+        return count;
+    }
+
+    // Largest number of color's stones within REACH of cell on any one line
+    private static int mostStonesInReach(Board board, int color, int cell) {
+        int most = 0;
+
+        for (int dir = 0; dir < Board.DIRECTIONS; dir++) {
+            long stones = board.lines[color][board.lineOf[dir][cell]];
+            long window = (0x1FFL << board.bitOf[dir][cell]) >>> REACH;
+            most = Math.max(most, Long.bitCount(stones & window));
+        }
+
+        return most;
+    }
+
+    private static boolean contains(int[] cells, int count, int cell) {
+        for (int i = 0; i < count; i++) {
+            if (cells[i] == cell) return true;
+        }
+        return false;
+    }
+
+    // One cell list per ply, like the move buffers of Minimax
+    private int[] cellsForPly(int ply, Board board) {
+        if (ply >= cellBuffers.length) {
+            cellBuffers = Arrays.copyOf(cellBuffers, ply + 1);
+        }
+
+        int cells = board.col * board.row;
+        if (cellBuffers[ply] == null || cellBuffers[ply].length < cells) {
+            cellBuffers[ply] = new int[cells];
+        }
+
+        return cellBuffers[ply];
+    }
+}
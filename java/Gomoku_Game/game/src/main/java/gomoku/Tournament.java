@@ -0,0 +1,281 @@
+package gomoku;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+// Headless AI vs AI matches for comparing engine configurations.
+// Usage: java -cp gomoku-game.jar gomoku.Tournament [--games N] [--size S] [--parallel P]
+//        [--opening K] [--seed X] [--a CONFIG] [--b CONFIG]
+// where CONFIG is a comma separated list such as depth=4,time=200,threads=1,hash=16,threats=1,solver=1,quiescence=1
+// or engine=mcts,time=500,threads=4,rollout=guided for the Monte Carlo tree search
+public class Tournament {
+
+    private int games = 100;
+    private int boardSize = Board.DEFAULT_SIZE;
+    private int parallelism = Runtime.getRuntime().availableProcessors();
+    private int openingMoves = 2;
+    private long seed = 1;
+    private EngineConfig engineA = EngineConfig.parse("depth=4");
+    private EngineConfig engineB = EngineConfig.parse("depth=4");
+
+    public static void main(String[] args) throws Exception {
+        Tournament tournament = new Tournament();
+
+        for (int i = 0; i + 1 < args.length; i += 2) {
+            String value = args[i + 1];
+            switch (args[i]) {
+                case "--games" -> tournament.games = Integer.parseInt(value);
+                case "--size" -> tournament.boardSize = Integer.parseInt(value);
+                case "--parallel" -> tournament.parallelism = Integer.parseInt(value);
+                case "--opening" -> tournament.openingMoves = Integer.parseInt(value);
+                case "--seed" -> tournament.seed = Long.parseLong(value);
+                case "--a" -> tournament.engineA = EngineConfig.parse(value);
+                case "--b" -> tournament.engineB = EngineConfig.parse(value);
+                default -> {
+                    System.out.println("Unknown option " + args[i]);
+                    return;
+                }
+            }
+        }
+
+        tournament.run();
+    }
+
+    // Settings of one side, every game gets fresh engine instances built from it
+    public static class EngineConfig {
+        public boolean mcts = false;
+        public int depth = 6;
+        public long timeMillis = 0;
+        public int threads = 1;
+        public int hashMegabytes = 16;
+        public boolean threats = true;
+        public boolean solver = true;
+        public boolean quiescence = true;
+        public int rollout = MonteCarloTreeSearch.GUIDED_ROLLOUT;
+
+        public static EngineConfig parse(String text) {
+            EngineConfig config = new EngineConfig();
+
+            for (String option : text.split(",")) {
+                String[] keyValue = option.split("=");
+                if (keyValue.length != 2) {
+                    throw new IllegalArgumentException("Expected key=value but got " + option);
+                }
+
+                switch (keyValue[0].trim()) {
+                    case "engine" -> config.mcts = parseEngine(keyValue[1].trim());
+                    case "depth" -> config.depth = Integer.parseInt(keyValue[1].trim());
+                    case "time" -> config.timeMillis = Long.parseLong(keyValue[1].trim());
+                    case "threads" -> config.threads = Integer.parseInt(keyValue[1].trim());
+                    case "hash" -> config.hashMegabytes = Integer.parseInt(keyValue[1].trim());
+                    case "threats" -> config.threats = Integer.parseInt(keyValue[1].trim()) != 0;
+                    case "solver" -> config.solver = Integer.parseInt(keyValue[1].trim()) != 0;
+                    case "quiescence" -> config.quiescence = Integer.parseInt(keyValue[1].trim()) != 0;
+                    case "rollout" -> config.rollout = parseRollout(keyValue[1].trim());
+                    default -> throw new IllegalArgumentException("Unknown engine option " + keyValue[0]);
+                }
+            }
+
+            return config;
+        }
+
+        private static boolean parseEngine(String name) {
+            return switch (name) {
+                case "minimax" -> false;
+                case "mcts" -> true;
+                default -> throw new IllegalArgumentException("Unknown engine " + name);
+            };
+        }
+
+        private static int parseRollout(String name) {
+            return switch (name) {
+                case "random" -> MonteCarloTreeSearch.RANDOM_ROLLOUT;
+                case "guided" -> MonteCarloTreeSearch.GUIDED_ROLLOUT;
+                default -> throw new IllegalArgumentException("Unknown rollout " + name);
+            };
+        }
+
+        // depth, hash, threats, solver and quiescence only apply to Minimax, rollout only to MCTS
+        public Engine create() {
+            if (mcts) {
+                MonteCarloTreeSearch search = new MonteCarloTreeSearch();
+                search.setMoveTime(timeMillis);
+                search.setRollout(rollout);
+                if (threads > 1) {
+                    search.setThreads(threads);
+                }
+                return search;
+            }
+
+            Minimax minimax = new Minimax(hashMegabytes);
+            minimax.setMaxDepth(depth);
+            minimax.setMoveTime(timeMillis);
+            minimax.setThreatSearch(threats);
+            minimax.setSolver(solver);
+            minimax.setQuiescence(quiescence);
+            if (threads > 1) {
+                minimax.setThreads(threads);
+            }
+            return minimax;
+        }
+
+        @Override
+        public String toString() {
+            if (mcts) {
+                return "engine=mcts,time=" + timeMillis + ",threads=" + threads + ",rollout="
+                        + (rollout == MonteCarloTreeSearch.RANDOM_ROLLOUT ? "random" : "guided");
+            }
+            return "depth=" + depth + ",time=" + timeMillis + ",threads=" + threads + ",hash=" + hashMegabytes
+                    + ",threats=" + (threats ? 1 : 0) + ",solver=" + (solver ? 1 : 0) + ",quiescence=" + (quiescence ? 1 : 0);
+        }
+    }
+
+    // Outcome of one game from engine A's point of view plus per-engine search totals
+    private static class GameResult {
+        double scoreA; // 1 win, 0.5 draw, 0 loss
+        long[] moves = new long[2];
+        long[] nanos = new long[2];
+        long[] nodes = new long[2];
+    }
+
+    public void run() throws Exception {
+        Board.checkSize(boardSize);
+        System.out.println("A: " + engineA);
+        System.out.println("B: " + engineB);
+        System.out.println(games + " games on " + boardSize + "x" + boardSize + ", "
+                + openingMoves + " random opening moves, " + parallelism + " in parallel");
+
+        ExecutorService pool = Executors.newFixedThreadPool(parallelism);
+        List<Future<GameResult>> futures = new ArrayList<>();
+        long start = System.nanoTime();
+
+        for (int i = 0; i < games; i++) {
+            int gameIndex = i;
+            futures.add(pool.submit(() -> playGame(gameIndex)));
+        }
+
+        List<GameResult> results = new ArrayList<>();
+        for (Future<GameResult> future : futures) {
+            results.add(future.get());
+        }
+        pool.shutdown();
+
+        printSummary(results, System.nanoTime() - start);
+    }
+
+    // Games come in pairs that share a random opening, A plays black in the first one
+    private GameResult playGame(int gameIndex) {
+        Board board = new Board(boardSize);
+        Random random = new Random(seed * 1_000_003 + gameIndex / 2);
+        boolean aIsBlack = gameIndex % 2 == 0;
+
+        Engine[] engines = {engineA.create(), engineB.create()};
+        Player black = new Player();
+        black.setName("black");
+        black.setSymbol('B');
+        Player white = new Player();
+        white.setName("white");
+        white.setSymbol('W');
+
+        GameResult result = new GameResult();
+        result.scoreA = 0.5;
+        char toMove = playRandomOpening(board, random);
+
+        while (board.movesLeft > 0) {
+            Player mover = toMove == 'B' ? black : white;
+            Player opponent = toMove == 'B' ? white : black;
+            int side = (toMove == 'B') == aIsBlack ? 0 : 1;
+
+            long moveStart = System.nanoTime();
+            int[] move = engines[side].findBestMove(board, mover, opponent);
+            result.nanos[side] += System.nanoTime() - moveStart;
+            result.nodes[side] += engines[side].getNodes();
+            result.moves[side]++;
+
+            board.makeAIMove(move[0], move[1], toMove);
+            if (MovesAnalyzer.checkWinningCondition(board, toMove, move[0], move[1])) {
+                result.scoreA = side == 0 ? 1 : 0;
+                break;
+            }
+            toMove = toMove == 'B' ? 'W' : 'B';
+        }
+
+        engines[0].shutdown();
+        engines[1].shutdown();
+        return result;
+    }
+
+    // Random stones near the center, alternating colors, returns the side to move next
+    private char playRandomOpening(Board board, Random random) {
+        char toMove = 'B';
+        int center = board.col / 2;
+
+        for (int placed = 0; placed < openingMoves; ) {
+            int x = center + random.nextInt(5) - 2;
+            int y = center + random.nextInt(5) - 2;
+
+            if (board.makeAIMove(x, y, toMove)) {
+                toMove = toMove == 'B' ? 'W' : 'B';
+                placed++;
+            }
+        }
+
+        return toMove;
+    }
+
+    private void printSummary(List<GameResult> results, long elapsedNanos) {
+        int wins = 0;
+        int draws = 0;
+        int losses = 0;
+        long[] moves = new long[2];
+        long[] nanos = new long[2];
+        long[] nodes = new long[2];
+
+        for (GameResult result : results) {
+            if (result.scoreA == 1) wins++;
+            else if (result.scoreA == 0) losses++;
+            else draws++;
+
+            for (int side = 0; side < 2; side++) {
+                moves[side] += result.moves[side];
+                nanos[side] += result.nanos[side];
+                nodes[side] += result.nodes[side];
+            }
+        }
+
+        int n = results.size();
+        double score = (wins + 0.5 * draws) / n;
+        double variance = 0;
+        for (GameResult result : results) {
+            variance += (result.scoreA - score) * (result.scoreA - score);
+        }
+        double error = 1.96 * Math.sqrt(variance / n) / Math.sqrt(n);
+
+        System.out.println("-".repeat(60));
+        System.out.printf("A wins %d, draws %d, losses %d (score %.1f%%)%n", wins, draws, losses, score * 100);
+        System.out.printf("Elo difference A - B: %s (95%% interval %s .. %s)%n",
+                formatElo(score), formatElo(score - error), formatElo(score + error));
+
+        String[] names = {"A", "B"};
+        EngineConfig[] configs = {engineA, engineB};
+        for (int side = 0; side < 2; side++) {
+            // Engine.getNodes counts playouts for MCTS, which are not comparable to Minimax nodes
+            System.out.printf("%s: %.1f ms/move, %.0f %s/sec over %d moves%n", names[side],
+                    moves[side] == 0 ? 0 : nanos[side] / 1e6 / moves[side],
+                    nanos[side] == 0 ? 0 : nodes[side] / (nanos[side] / 1e9),
+                    configs[side].mcts ? "playouts" : "nodes", moves[side]);
+        }
+
+        System.out.printf("%.1f games/minute (%.1f s total)%n", n / (elapsedNanos / 6e10), elapsedNanos / 1e9);
+    }
+
+    private static String formatElo(double score) {
+        if (score <= 0) return "-inf";
+        if (score >= 1) return "+inf";
+        return String.format("%+.0f", -400 * Math.log10(1 / score - 1));
+    }
+}
@@ -0,0 +1,132 @@
+package gomoku;
+
+import java.util.Arrays;
+
+public class TranspositionTable {
+    public static final int EXACT = 0;
+    public static final int LOWER_BOUND = 1;
+    public static final int UPPER_BOUND = 2;
+
+    // Every entry is two longs: the packed data and the key XOR-ed with it.
+    // Parallel searches share the table without locks, an entry torn by two racing
+    // writers no longer matches its key and simply reads as a miss.
+    // The probe and hit counters are not synchronized and only approximate in that case
+    private static final int ENTRY_BYTES = 16;
+
+    // Packed entry layout:
+    // bits 0-31 score, 32-39 depth, 40-41 bound type, 42-56 best move + 1, 57-62 age, 63 valid
+    private static final long VALID = 1L << 63;
+
+    private final long[] keys;
+    private final long[] data;
+    private final int bucketMask;
+    private int age = 0;
+
+    private long probes = 0;
+    private long hits = 0;
+
+    public TranspositionTable(int megabytes) {
+        long entries = Math.max(2, (long) megabytes * 1024 * 1024 / ENTRY_BYTES);
+        // buckets of two entries: [0] keeps the deepest search, [1] is always replaced
+        int buckets = Integer.highestOneBit((int) Math.min(entries / 2, 1 << 30));
+
+        keys = new long[buckets * 2];
+        data = new long[buckets * 2];
+        bucketMask = buckets - 1;
+    }
+
+    // Called at the start of every search so entries from old searches get replaced first
+    public void newSearch() {
+        age = (age + 1) & 0x3F;
+    }
+
+    public void clear() {
+        Arrays.fill(keys, 0);
+        Arrays.fill(data, 0);
+        probes = hits = 0;
+    }
+
+    // Returns the packed entry for the key or 0 if there is none
+    public long probe(long key) {
+        probes++;
+        int index = ((int) key & bucketMask) * 2;
+
+        for (int i = index; i < index + 2; i++) {
+            long entry = data[i];
+            if (entry != 0 && (keys[i] ^ entry) == key) {
+                hits++;
+                return entry;
+            }
+        }
+
+        return 0;
+    }
+
+    public void store(long key, int depth, int score, int bound, int move) {
+        int index = ((int) key & bucketMask) * 2;
+        long entry = VALID
+                | (score & 0xFFFFFFFFL)
+                | ((long) depth & 0xFF) << 32
+                | ((long) bound) << 40
+                | ((long) (move + 1) & 0x7FFF) << 42
+                | ((long) age) << 57;
+
+        long deepest = data[index];
+        if (deepest == 0 || (keys[index] ^ deepest) == key
+                || age(deepest) != age || depth >= depth(deepest)) {
+            keys[index] = key ^ entry;
+            data[index] = entry;
+        } else {
+            keys[index + 1] = key ^ entry;
+            data[index + 1] = entry;
+        }
+    }
+
+    public static int score(long entry) {
+        return (int) entry;
+    }
+
+    public static int depth(long entry) {
+        return (int) (entry >>> 32) & 0xFF;
+    }
+
+    public static int bound(long entry) {
+        return (int) (entry >>> 40) & 0x3;
+    }
+
+    // Best move as a cell index (y * col + x) or -1 if none was stored
+    public static int move(long entry) {
+        return ((int) (entry >>> 42) & 0x7FFF) - 1;
+    }
+
+    private static int age(long entry) {
+        return (int) (entry >>> 57) & 0x3F;
+    }
+
+    public long getProbes() {
+        return probes;
+    }
+
+    public long getHits() {
+        return hits;
+    }
+
+    public double hitRate() {
+        return probes == 0 ? 0 : (double) hits / probes;
+    }
+
+    public int capacity() {
+        return keys.length;
+    }
+
+    // Entries in use, a scan of the whole table
+    public int occupied() {
+        int used = 0;
+        for (long entry : data) {
+            if (entry != 0) {
+                used++;
+            }
+        }
+        return used;
+    }
+}
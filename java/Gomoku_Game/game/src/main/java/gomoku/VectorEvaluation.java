@@ -0,0 +1,80 @@
+package gomoku;
+
+import jdk.incubator.vector.ByteVector;
+import jdk.incubator.vector.VectorMask;
+import jdk.incubator.vector.VectorSpecies;
+
+// evaluateSymbolBoardState on Board.lanes with the Vector API. Every lane of a vector is one cell:
+// the run through a stone is measured by comparing the cells up to five steps along the line and
+// back, and an end of the run is open when the cell just past it is empty. Stones are then
+// counted per run length and open ends and weighted like the scalar formula.
+// Needs java --add-modules jdk.incubator.vector, MovesAnalyzer only calls it when the module is there
+public final class VectorEvaluation {
+
+    private static final VectorSpecies<Byte> SPECIES = ByteVector.SPECIES_PREFERRED;
+    // Cells looked at on each side of a stone, one more than a five needs so overlines show
+    private static final int REACH = 5;
+    // Border cells Board keeps before and after the lanes: a vector loaded at the last lane cell
+    // and then moved REACH cells further still has to stay inside the array
+    public static final int LANE_PADDING = SPECIES.length() + REACH;
+    private static final int MAX_CODE = 5 * 3 + 2;
+    // Value of one stone by run length * 3 + open ends, lengths of one are worth nothing
+    private static final int[] STONE_SCORE = new int[MAX_CODE + 1];
+
+    static {
+        for (int length = 1; length <= 5; length++) {
+            for (int openEdges = 0; openEdges <= 2; openEdges++) {
+                STONE_SCORE[length * 3 + openEdges] = MovesAnalyzer.weights[length - 1][openEdges] * length * (openEdges + 1);
+            }
+        }
+    }
+
+    private VectorEvaluation() {
+    }
+
+    public static String species() {
+        return SPECIES.toString();
+    }
+
+    public static int evaluateSymbol(Board board, char symbol) {
+        byte own = (byte) (Board.colorIndex(symbol) + 1);
+        int totalValue = 0;
+
+        for (int dir = 0; dir < Board.DIRECTIONS; dir++) {
+            byte[] lanes = board.lanes[dir];
+            int end = Board.LANE_PADDING + board.laneCount[dir];
+
+            for (int i = Board.LANE_PADDING; i < end; i += SPECIES.length()) {
+                VectorMask<Byte> stones = ByteVector.fromArray(SPECIES, lanes, i).eq(own);
+                if (!stones.anyTrue()) {
+                    continue;
+                }
+
+                ByteVector length = ByteVector.broadcast(SPECIES, (byte) 1);
+                ByteVector openEdges = ByteVector.zero(SPECIES);
+                for (int side = -1; side <= 1; side += 2) {
+                    VectorMask<Byte> run = stones;
+                    for (int k = 1; k <= REACH; k++) {
+                        ByteVector next = ByteVector.fromArray(SPECIES, lanes, i + side * k);
+                        openEdges = openEdges.add((byte) 1, run.and(next.eq(Board.LANE_EMPTY)));
+                        run = run.and(next.eq(own));
+                        length = length.add((byte) 1, run);
+                    }
+                }
+
+                ByteVector code = length.mul((byte) 3).add(openEdges);
+                for (int c = 2 * 3; c <= MAX_CODE; c++) {
+                    int count = stones.and(code.eq((byte) c)).trueCount();
+                    if (count > 0) {
+                        totalValue += count * STONE_SCORE[c];
+                    }
+                }
+            }
+        }
+
+        if (board.overlines[Board.colorIndex(symbol)] > 0) {
+            totalValue -= MovesAnalyzer.skippedByOverlines(board, symbol);
+        }
+        return totalValue;
+    }
+}
@@ -0,0 +1,85 @@
+package gomoku;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+
+// Board.scores is kept line by line on make/undo and has to match the full scan of
+// evaluateSymbolBoardState after every move and every undo
+class IncrementalEvaluationTest {
+
+    private static final int[] SIZES = {Board.MIN_SIZE, 9, 15, 19, Board.MAX_SIZE};
+    private static final int GAMES = 5;
+
+    @Test
+    void scoresMatchTheFullScanThroughMakeAndUndo() {
+        Random random = new Random(1);
+        for (int size : SIZES) {
+            for (int game = 0; game < GAMES; game++) {
+                playRandomGame(new Board(size), random);
+            }
+        }
+    }
+
+    // Random moves until the board is full, with every third step on average taking the last
+    // move back. Every undo has to bring back the scores from before that move
+    private static void playRandomGame(Board board, Random random) {
+        Deque<int[]> played = new ArrayDeque<>();
+        Deque<int[]> scoresBefore = new ArrayDeque<>();
+        char symbol = 'B';
+
+        while (board.movesLeft > 0) {
+            if (!played.isEmpty() && random.nextInt(3) == 0) {
+                int[] move = played.pop();
+                symbol = otherSymbol(symbol);
+                board.undoAIMove(move[0], move[1], symbol);
+                assertArrayEquals(scoresBefore.pop(), board.scores, "scores after undoing " + describe(board, move));
+                assertMatchesFullScan(board, move);
+                continue;
+            }
+
+            int x;
+            int y;
+            do {
+                x = random.nextInt(board.col);
+                y = random.nextInt(board.row);
+            } while (board.board[y][x] != board.EMPTY);
+
+            int[] move = {x, y};
+            scoresBefore.push(board.scores.clone());
+            played.push(move);
+            board.makeAIMove(x, y, symbol);
+            symbol = otherSymbol(symbol);
+            assertMatchesFullScan(board, move);
+        }
+    }
+
+    // The per-line scores are exact only without overlines, evaluateBoardState falls back to the
+    // full scan otherwise, so that is what it has to return then
+    private static void assertMatchesFullScan(Board board, int[] move) {
+        for (char symbol : new char[]{'B', 'W'}) {
+            int full = MovesAnalyzer.evaluateSymbolBoardState(board, symbol);
+            if (board.overlines[0] + board.overlines[1] == 0) {
+                assertEquals(full, board.scores[Board.colorIndex(symbol)], symbol + " score after " + describe(board, move));
+            }
+
+            int opponentFull = MovesAnalyzer.evaluateSymbolBoardState(board, otherSymbol(symbol));
+            assertEquals((int) (full - opponentFull * 1.5), MovesAnalyzer.evaluateBoardState(board, symbol),
+                    symbol + " evaluation after " + describe(board, move));
+        }
+    }
+
+    private static char otherSymbol(char symbol) {
+        return symbol == 'B' ? 'W' : 'B';
+    }
+
+    private static String describe(Board board, int[] move) {
+        return "(" + move[0] + ", " + move[1] + ") on " + board.col + "x" + board.row
+                + " with " + (board.col * board.row - board.movesLeft) + " stones";
+    }
+}
@@ -0,0 +1,95 @@
+package gomoku;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+
+// VectorEvaluation has to give the scores of the scalar evaluateSymbolBoardState, overlines
+// included. Surefire starts the JVM with --add-modules jdk.incubator.vector
+class VectorEvaluationTest {
+
+    private static final double[] FILLS = {0.1, 0.3, 0.5, 0.7, 0.9};
+    private static final int POSITIONS = 8;
+    private static final int[][] DIRECTIONS = {{1, 0}, {0, 1}, {1, 1}, {1, -1}};
+
+    @Test
+    void matchesTheScalarEvaluationOnRandomPositions() {
+        assumeTrue(MovesAnalyzer.VECTOR_EVALUATION, "needs --add-modules jdk.incubator.vector");
+
+        Random random = new Random(1);
+        int withOverlines = 0;
+        for (int size = Board.MIN_SIZE; size <= Board.MAX_SIZE; size++) {
+            for (double fill : FILLS) {
+                for (int position = 0; position < POSITIONS; position++) {
+                    Board board = new Board(size);
+                    List<int[]> stones = new ArrayList<>();
+                    // every other position gets a run of six to eight stones
+                    if (position % 2 == 1) {
+                        placeOverline(board, random, stones);
+                    }
+                    fillRandomly(board, random, fill, stones);
+                    if (board.overlines[0] + board.overlines[1] > 0) {
+                        withOverlines++;
+                    }
+                    assertSameScores(board, "fill " + fill);
+
+                    // the lanes are updated on undo as well
+                    for (int i = stones.size() - 1; i >= stones.size() / 2; i--) {
+                        int[] stone = stones.get(i);
+                        board.undoAIMove(stone[0], stone[1], (char) stone[2]);
+                    }
+                    assertSameScores(board, "fill " + fill + " after undoing half");
+                    assertSameScores(new Board(board), "fill " + fill + " on a copy");
+                }
+            }
+        }
+
+        assertTrue(withOverlines > 0, "no position had an overline");
+    }
+
+    private static void placeOverline(Board board, Random random, List<int[]> stones) {
+        char symbol = random.nextBoolean() ? 'B' : 'W';
+        int[] direction = DIRECTIONS[random.nextInt(DIRECTIONS.length)];
+        int length = 6 + random.nextInt(3);
+        if (length > board.col) {
+            return;
+        }
+
+        // the start leaves room for the run in the chosen direction
+        int x = direction[0] == 0 ? random.nextInt(board.col) : random.nextInt(board.col - length + 1);
+        int y = direction[1] == 0 ? random.nextInt(board.row)
+                : direction[1] > 0 ? random.nextInt(board.row - length + 1) : length - 1 + random.nextInt(board.row - length + 1);
+        for (int i = 0; i < length; i++) {
+            place(board, x + i * direction[0], y + i * direction[1], symbol, stones);
+        }
+    }
+
+    private static void fillRandomly(Board board, Random random, double fill, List<int[]> stones) {
+        for (int y = 0; y < board.row; y++) {
+            for (int x = 0; x < board.col; x++) {
+                if (board.board[y][x] == board.EMPTY && random.nextDouble() < fill) {
+                    place(board, x, y, random.nextBoolean() ? 'B' : 'W', stones);
+                }
+            }
+        }
+    }
+
+    private static void place(Board board, int x, int y, char symbol, List<int[]> stones) {
+        if (board.makeAIMove(x, y, symbol)) {
+            stones.add(new int[]{x, y, symbol});
+        }
+    }
+
+    private static void assertSameScores(Board board, String position) {
+        for (char symbol : new char[]{'B', 'W'}) {
+            assertEquals(MovesAnalyzer.evaluateSymbolBoardState(board, symbol), VectorEvaluation.evaluateSymbol(board, symbol),
+                    symbol + " on " + board.col + "x" + board.row + ", " + position);
+        }
+    }
+}